@@ -0,0 +1,98 @@
+package benchmark;
+
+import chess.ChessBoard;
+import chess.ChessGame;
+import chess.ChessPiece;
+import chess.ChessPosition;
+import chess.MoveList;
+import chess.Perft;
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Move generation and game status checks, the work done for every move and every
+ * highlight request.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Thread)
+public class ChessEngineBenchmark {
+    // A busy middlegame with every piece type developed
+    private static final String MIDDLEGAME = "r3k2r/p1ppqpb1/bn2pnp1/3PN3/1p2P3/2N2Q1p/PPPBBPPP/R3K2R w - - 0 1";
+    // Fool's mate, white to move and checkmated
+    private static final String CHECKMATE = "rnb1kbnr/pppp1ppp/8/4p3/6Pq/5P2/PPPPP2P/RNBQKBNR w - - 1 3";
+
+    private ChessGame start;
+    private ChessGame middlegame;
+    private ChessGame checkmate;
+
+    private ChessBoard middlegameBoard;
+    private ChessPiece queen;
+    private ChessPosition queenPosition;
+    private final MoveList moves = new MoveList();
+
+    @Setup
+    public void setup() {
+        start = new ChessGame();
+        middlegame = Perft.loadFen(MIDDLEGAME);
+        checkmate = Perft.loadFen(CHECKMATE);
+
+        middlegameBoard = middlegame.getBoard();
+        queenPosition = new ChessPosition(3, 6);
+        queen = middlegameBoard.getPiece(queenPosition);
+    }
+
+    @Benchmark
+    public Object pieceMovesQueen() {
+        return queen.pieceMoves(middlegameBoard, queenPosition);
+    }
+
+    @Benchmark
+    public void validMovesStart(Blackhole bh) {
+        validMovesForEverySquare(start, bh);
+    }
+
+    @Benchmark
+    public void validMovesMiddlegame(Blackhole bh) {
+        validMovesForEverySquare(middlegame, bh);
+    }
+
+    @Benchmark
+    public int validMovesMiddlegamePacked() {
+        moves.clear();
+        for (int row = 1; row <= 8; row++) {
+            for (int col = 1; col <= 8; col++) {
+                middlegame.validMoves(ChessPosition.of(row, col), moves);
+            }
+        }
+        return moves.size();
+    }
+
+    @Benchmark
+    public boolean isInCheckmateMated() {
+        return checkmate.isInCheckmate(ChessGame.TeamColor.WHITE);
+    }
+
+    @Benchmark
+    public boolean isInCheckmateNotMated() {
+        return middlegame.isInCheckmate(ChessGame.TeamColor.WHITE);
+    }
+
+    @Benchmark
+    public boolean isInStalemateMiddlegame() {
+        return middlegame.isInStalemate(ChessGame.TeamColor.WHITE);
+    }
+
+    private static void validMovesForEverySquare(ChessGame game, Blackhole bh) {
+        for (int row = 1; row <= 8; row++) {
+            for (int col = 1; col <= 8; col++) {
+                bh.consume(game.validMoves(ChessPosition.of(row, col)));
+            }
+        }
+    }
+}
@@ -0,0 +1,103 @@
+package benchmark;
+
+import chess.ChessGame;
+import dataaccess.AuthCachingDataAccess;
+import dataaccess.CachingDataAccess;
+import dataaccess.DataAccess;
+import dataaccess.DataAccessException;
+import dataaccess.LogDataAccess;
+import dataaccess.MemoryDAO;
+import dataaccess.OffHeapDAO;
+import dataaccess.SQLDataAccess;
+import model.AuthData;
+import model.GameData;
+import model.UserData;
+import org.openjdk.jmh.annotations.*;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.util.UUID;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * The DAO calls behind every request, against MemoryDAO, OffHeapDAO, LogDataAccess on a temp
+ * file, SQLDataAccess on an embedded H2 database (see db.properties in this module) so they can
+ * run anywhere, and that same database behind the auth and game caches.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class DataAccessBenchmark {
+    private static final int GAMES = 100;
+
+    // "cached" is SQL behind the auth and game caches
+    @Param({"memory", "offheap", "log", "sql", "cached"})
+    public String backend;
+
+    private DataAccess dao;
+    private String authToken;
+    private GameData game;
+
+    @Setup(Level.Trial)
+    public void setup() throws DataAccessException, IOException {
+        dao = switch (backend) {
+            case "log" -> new LogDataAccess(Files.createTempFile("chess", ".log"));
+            case "sql" -> new SQLDataAccess();
+            case "cached" -> new AuthCachingDataAccess(CachingDataAccess.start(new SQLDataAccess()));
+            case "offheap" -> new OffHeapDAO();
+            default -> new MemoryDAO();
+        };
+        dao.clear();
+
+        dao.createUser(new UserData("white", "password", "white@chess.com"));
+        dao.createUser(new UserData("black", "password", "black@chess.com"));
+        authToken = dao.createAuth(new AuthData(UUID.randomUUID().toString(), "white")).authToken();
+        for (int i = 0; i < GAMES; i++) {
+            game = dao.createGame(new GameData(0, "white", "black", "game" + i, new ChessGame()));
+        }
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() throws DataAccessException {
+        dao.clear();
+        if (dao instanceof LogDataAccess log) {
+            log.close();
+        }
+    }
+
+    @Benchmark
+    public AuthData getAuth() throws DataAccessException {
+        return dao.getAuth(authToken);
+    }
+
+    @Benchmark
+    public AuthData createAndDeleteAuth() throws DataAccessException {
+        AuthData auth = dao.createAuth(new AuthData(UUID.randomUUID().toString(), "black"));
+        dao.deleteAuth(auth.authToken());
+        return auth;
+    }
+
+    @Benchmark
+    public GameData getGame() throws DataAccessException {
+        return dao.getGame(game.gameID());
+    }
+
+    @Benchmark
+    public GameData updateGame() throws DataAccessException {
+        dao.updateGame(game);
+        return game;
+    }
+
+    @Benchmark
+    public Object listGames() throws DataAccessException {
+        return dao.listGames();
+    }
+
+    @Benchmark
+    public Object listGameSummaries() throws DataAccessException {
+        return dao.listGameSummaries();
+    }
+}
@@ -0,0 +1,96 @@
+package benchmark;
+
+import chess.ChessGame;
+import dataaccess.ConcurrentMemoryDAO;
+import dataaccess.DataAccess;
+import dataaccess.DataAccessException;
+import dataaccess.MemoryDAO;
+import model.AuthData;
+import model.GameData;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.UUID;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * The in-memory DAOs shared by 8 request threads, the way a server uses them.
+ * <p>
+ * MemoryDAO isn't thread safe, so its numbers are a lower bound rather than something a
+ * server could actually run with. Most of these benchmarks only overwrite existing keys, so it
+ * doesn't corrupt itself there. ConcurrentMemoryDAO shows what safety costs on top of that.
+ * <p>
+ * createAndUpdate is the mix where the locking matters, one new game to every
+ * UPDATES_PER_CREATE updates. Creates add keys, which MemoryDAO can't take from several
+ * threads, so there it runs under one lock around the whole DAO: what the simplest safe
+ * server would do. The DAOs are rebuilt every iteration so the new games don't pile up.
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@Threads(8)
+@State(Scope.Benchmark)
+public class MemoryDAOContentionBenchmark {
+    private static final int GAMES = 1000;
+    private static final int TOKENS = 1000;
+    private static final int UPDATES_PER_CREATE = 8;
+
+    @Param({"plain", "concurrent"})
+    public String dao;
+
+    private DataAccess dataAccess;
+    private GameData[] games;
+    private String[] tokens;
+
+    @Setup(Level.Iteration)
+    public void setup() throws DataAccessException {
+        dataAccess = dao.equals("plain") ? new MemoryDAO() : new ConcurrentMemoryDAO();
+        games = new GameData[GAMES];
+        for (int i = 0; i < GAMES; i++) {
+            games[i] = dataAccess.createGame(new GameData(0, "white", null, "game" + i, new ChessGame()));
+        }
+        tokens = new String[TOKENS];
+        for (int i = 0; i < TOKENS; i++) {
+            tokens[i] = dataAccess.createAuth(new AuthData(UUID.randomUUID().toString(), "white")).authToken();
+        }
+    }
+
+    @Benchmark
+    public AuthData getAuth() throws DataAccessException {
+        return dataAccess.getAuth(tokens[ThreadLocalRandom.current().nextInt(TOKENS)]);
+    }
+
+    @Benchmark
+    public GameData getGame() throws DataAccessException {
+        return dataAccess.getGame(games[ThreadLocalRandom.current().nextInt(GAMES)].gameID());
+    }
+
+    @Benchmark
+    public GameData updateGame() throws DataAccessException {
+        GameData game = games[ThreadLocalRandom.current().nextInt(GAMES)];
+        dataAccess.updateGame(game);
+        return game;
+    }
+
+    @Benchmark
+    public GameData createAndUpdate() throws DataAccessException {
+        ThreadLocalRandom random = ThreadLocalRandom.current();
+        if (dataAccess instanceof MemoryDAO) {
+            synchronized (dataAccess) {
+                return createOrUpdate(random);
+            }
+        }
+        return createOrUpdate(random);
+    }
+
+    private GameData createOrUpdate(ThreadLocalRandom random) throws DataAccessException {
+        if (random.nextInt(UPDATES_PER_CREATE + 1) == 0) {
+            return dataAccess.createGame(new GameData(0, "white", null, "new", new ChessGame()));
+        }
+        GameData game = games[random.nextInt(GAMES)];
+        dataAccess.updateGame(game);
+        return game;
+    }
+}
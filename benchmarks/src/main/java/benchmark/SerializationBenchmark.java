@@ -0,0 +1,63 @@
+package benchmark;
+
+import chess.ChessGame;
+import chess.GameCodec;
+import chess.Perft;
+import com.google.gson.Gson;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Gson round trips of ChessGame, which is how game state gets sent to clients, against the
+ * GameCodec binary form the database stores.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Thread)
+public class SerializationBenchmark {
+    private final Gson gson = new Gson();
+
+    @Param({"start", "middlegame"})
+    public String position;
+
+    private ChessGame game;
+    private String json;
+    private byte[] encoded;
+
+    @Setup
+    public void setup() {
+        game = position.equals("start") ? new ChessGame()
+                : Perft.loadFen("r3k2r/p1ppqpb1/bn2pnp1/3PN3/1p2P3/2N2Q1p/PPPBBPPP/R3K2R w - - 0 1");
+        json = gson.toJson(game);
+        encoded = GameCodec.encode(game);
+    }
+
+    @Benchmark
+    public String toJson() {
+        return gson.toJson(game);
+    }
+
+    @Benchmark
+    public ChessGame fromJson() {
+        return gson.fromJson(json, ChessGame.class);
+    }
+
+    @Benchmark
+    public ChessGame roundTrip() {
+        return gson.fromJson(gson.toJson(game), ChessGame.class);
+    }
+
+    @Benchmark
+    public byte[] encode() {
+        return GameCodec.encode(game);
+    }
+
+    @Benchmark
+    public ChessGame decode() {
+        return GameCodec.decode(encoded);
+    }
+}
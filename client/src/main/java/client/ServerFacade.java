@@ -4,6 +4,7 @@ import com.google.gson.Gson;
 import java.io.*;
 import java.net.HttpURLConnection;
 import java.net.URL;
+import java.net.URLEncoder;
 import java.nio.charset.StandardCharsets;
 
 public class ServerFacade {
@@ -75,12 +76,24 @@ public class ServerFacade {
 
     public static class ListGamesResult {
         private GameInfo[] games;
+        private Integer nextCursor;
         public String message;
 
         public GameInfo[] getGames() { return games; }
+        // Pass back in as GameQuery.cursor for the next page; null on the last page
+        public Integer getNextCursor() { return nextCursor; }
         public String getMessage() { return message; }
     }
 
+    // Which page of games to list and how to filter them; leave a field null (or false) to skip it
+    public static class GameQuery {
+        public Integer cursor;
+        public Integer limit;
+        public boolean openSeat;
+        public String player;
+        public String namePrefix;
+    }
+
     public static class GenericResult {
         public String message;
         public String getMessage() { return message; }
@@ -189,9 +202,32 @@ public class ServerFacade {
         }
     }
 
+    /**
+     * Lists every game, following the server's pages until there are no more
+     */
     public ListGamesResult listGames(String authToken) {
+        var query = new GameQuery();
+        var all = new java.util.ArrayList<GameInfo>();
+        while (true) {
+            ListGamesResult page = listGames(authToken, query);
+            if (page.getMessage() != null) {
+                return page;
+            }
+            all.addAll(java.util.Arrays.asList(page.getGames()));
+            if (page.getNextCursor() == null) {
+                page.games = all.toArray(new GameInfo[0]);
+                return page;
+            }
+            query.cursor = page.getNextCursor();
+        }
+    }
+
+    /**
+     * Lists one page of games
+     */
+    public ListGamesResult listGames(String authToken, GameQuery query) {
         try {
-            String resp = doRequest("GET", "/game", null, authToken);
+            String resp = doRequest("GET", "/game" + queryString(query), null, authToken);
 
             if (lastStatusCode == 200) {
                 ListGamesResult r = gson.fromJson(resp, ListGamesResult.class);
@@ -214,6 +250,16 @@ public class ServerFacade {
         }
     }
 
+    private static String queryString(GameQuery query) {
+        var params = new java.util.StringJoiner("&", "?", "").setEmptyValue("");
+        if (query.cursor != null) params.add("cursor=" + query.cursor);
+        if (query.limit != null) params.add("limit=" + query.limit);
+        if (query.openSeat) params.add("open=true");
+        if (query.player != null) params.add("player=" + URLEncoder.encode(query.player, StandardCharsets.UTF_8));
+        if (query.namePrefix != null) params.add("prefix=" + URLEncoder.encode(query.namePrefix, StandardCharsets.UTF_8));
+        return params.toString();
+    }
+
     public GenericResult joinGame(String playerColor, Integer gameID, String authToken) {
         var req = new SimpleJson();
         req.put("playerColor", playerColor);
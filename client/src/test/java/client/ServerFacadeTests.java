@@ -143,6 +143,30 @@ public class ServerFacadeTests {
         assertTrue(list.getGames().length > 0);
     }
 
+    @Test
+    @DisplayName("List Games One Page At A Time")
+    public void listGamesPaged() {
+        // three games, two per page, so there's a second page to follow
+        var reg = facade.register("paige", "pw", "p@example.com");
+        facade.createGame("Page 1", reg.getAuthToken());
+        facade.createGame("Page 2", reg.getAuthToken());
+        facade.createGame("Page 3", reg.getAuthToken());
+
+        var query = new ServerFacade.GameQuery();
+        query.limit = 2;
+        var first = facade.listGames(reg.getAuthToken(), query);
+        assertEquals(2, first.getGames().length);
+        assertNotNull(first.getNextCursor());
+
+        query.cursor = first.getNextCursor();
+        var second = facade.listGames(reg.getAuthToken(), query);
+        assertEquals(1, second.getGames().length);
+        assertNull(second.getNextCursor());
+
+        // the plain call follows the pages itself
+        assertEquals(3, facade.listGames(reg.getAuthToken()).getGames().length);
+    }
+
     @Test
     @DisplayName("List Games Fails without Auth")
     public void listGamesFails() {
@@ -2,7 +2,11 @@ import server.Server;
 
 public class Main {
     public static void main(String[] args) {
-        Server server = new Server();
+        // -Dchess.virtualThreads=false handles requests on Jetty's platform thread pool instead.
+        // -Dchess.hashBudgetMillis=<ms> sets how long a password hash may take here (default 100).
+        // -Dchess.legalMoveCacheMB=<MB> sets how much memory caching legal moves may use (default 16, 0 for none).
+        boolean virtualThreads = Boolean.parseBoolean(System.getProperty("chess.virtualThreads", "true"));
+        Server server = new Server(virtualThreads);
         int port = server.run(8080);
         System.out.println("♕ 240 Chess Server running on port " + port);
     }
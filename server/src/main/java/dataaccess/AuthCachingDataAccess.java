@@ -0,0 +1,148 @@
+package dataaccess;
+
+import model.AuthData;
+
+import java.util.Iterator;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Remembers valid auth tokens in front of another DataAccess, so checking the token on every
+ * request doesn't cost a SELECT on auth_tokens each time.
+ * <p>
+ * getAuth reads through: a token found in the wrapped DataAccess is kept for the TTL, after
+ * which it's looked up again. Unknown tokens aren't remembered, so guessing tokens can't fill
+ * the cache. deleteAuth and clear drop tokens straight away; the TTL only matters when
+ * another server shares the same database and logs a token out there.
+ * <p>
+ * When the cache is over maxEntries, expired tokens go first and then arbitrary ones. Tokens
+ * are random UUIDs, so that amounts to random eviction, which is fine for a cache this cheap
+ * to refill.
+ */
+public class AuthCachingDataAccess extends ForwardingDataAccess {
+
+    /**
+     * @param ttlMillis  how long a token is trusted before it's checked again
+     * @param maxEntries most tokens remembered at once
+     */
+    public record Config(long ttlMillis, int maxEntries) {
+        public Config {
+            if (ttlMillis < 1 || maxEntries < 1) {
+                throw new IllegalArgumentException("ttlMillis and maxEntries must be positive");
+            }
+        }
+
+        public static Config defaults() {
+            return new Config(300_000, 100_000);
+        }
+    }
+
+    public record Stats(int size, long hits, long misses, long evictions) {
+        /**
+         * @return hits / lookups, or 0 if nothing has been looked up yet
+         */
+        public double hitRate() {
+            long lookups = hits + misses;
+            return lookups == 0 ? 0 : (double) hits / lookups;
+        }
+    }
+
+    private record Entry(AuthData auth, long expiresAt) {
+    }
+
+    private final Config config;
+    private final ConcurrentHashMap<String, Entry> tokens = new ConcurrentHashMap<>();
+    // Bumped by every deleteAuth/clear, so a lookup that raced with one doesn't put the token back
+    private final AtomicLong invalidations = new AtomicLong();
+
+    private final LongAdder hits = new LongAdder();
+    private final LongAdder misses = new LongAdder();
+    private final LongAdder evictions = new LongAdder();
+
+    public AuthCachingDataAccess(DataAccess delegate) {
+        this(delegate, Config.defaults());
+    }
+
+    public AuthCachingDataAccess(DataAccess delegate, Config config) {
+        super(delegate);
+        this.config = config;
+    }
+
+    @Override
+    public AuthData createAuth(AuthData auth) throws DataAccessException {
+        AuthData created = delegate.createAuth(auth);
+        remember(created, invalidations.get()); // it's about to be used
+        return created;
+    }
+
+    @Override
+    public AuthData getAuth(String authToken) throws DataAccessException {
+        if (authToken == null) {
+            return delegate.getAuth(null);
+        }
+        long now = System.currentTimeMillis();
+        Entry entry = tokens.get(authToken);
+        if (entry != null && entry.expiresAt() > now) {
+            hits.increment();
+            return entry.auth();
+        }
+
+        misses.increment();
+        long invalidationsBefore = invalidations.get();
+        AuthData auth = delegate.getAuth(authToken);
+        if (auth == null) {
+            tokens.remove(authToken);
+        } else {
+            remember(auth, invalidationsBefore);
+        }
+        return auth;
+    }
+
+    @Override
+    public void deleteAuth(String authToken) throws DataAccessException {
+        delegate.deleteAuth(authToken);
+        invalidations.incrementAndGet();
+        if (authToken != null) {
+            tokens.remove(authToken);
+        }
+    }
+
+    @Override
+    public void clear() throws DataAccessException {
+        delegate.clear();
+        invalidations.incrementAndGet();
+        tokens.clear();
+    }
+
+    public Stats getStats() {
+        return new Stats(tokens.size(), hits.sum(), misses.sum(), evictions.sum());
+    }
+
+    // ----- Internals -----
+
+    private void remember(AuthData auth, long invalidationsBefore) {
+        Entry entry = new Entry(auth, System.currentTimeMillis() + config.ttlMillis());
+        tokens.put(auth.authToken(), entry);
+        // A logout that finished while we were loading may have removed the token before we
+        // put it back; take ours out again rather than trust a token that may be gone
+        if (invalidations.get() != invalidationsBefore) {
+            tokens.remove(auth.authToken(), entry);
+        }
+        if (tokens.size() > config.maxEntries()) {
+            evict();
+        }
+    }
+
+    private void evict() {
+        long now = System.currentTimeMillis();
+        int target = config.maxEntries() - config.maxEntries() / 10; // some headroom so we don't evict on every put
+        tokens.values().removeIf(entry -> entry.expiresAt() <= now);
+        Iterator<Entry> it = tokens.values().iterator();
+        while (tokens.size() > target && it.hasNext()) {
+            it.next();
+            it.remove();
+            evictions.increment();
+        }
+    }
+}
@@ -0,0 +1,68 @@
+package dataaccess;
+
+import model.AuthData;
+import model.UserData;
+import org.junit.jupiter.api.*;
+import static org.junit.jupiter.api.Assertions.*;
+
+public class AuthCachingDataAccessTests {
+    private SQLDataAccess database;
+    private AuthCachingDataAccess cache;
+
+    @BeforeEach
+    public void setup() throws DataAccessException {
+        database = new SQLDataAccess();
+        database.clear();
+        database.createUser(new UserData("sophia", "pw", "s@e.com"));
+        cache = new AuthCachingDataAccess(database, new AuthCachingDataAccess.Config(60_000, 2));
+    }
+
+    @Test
+    public void repeatLookupsAreServedFromCache() throws DataAccessException {
+        database.createAuth(new AuthData("token123", "sophia"));
+        assertEquals("sophia", cache.getAuth("token123").username());
+
+        // Gone from the database behind the cache's back, but still trusted until the TTL
+        database.deleteAuth("token123");
+        assertNotNull(cache.getAuth("token123"));
+
+        var stats = cache.getStats();
+        assertEquals(1, stats.hits());
+        assertEquals(1, stats.misses());
+        assertEquals(0.5, stats.hitRate());
+    }
+
+    @Test
+    public void deleteAuthInvalidates() throws DataAccessException {
+        cache.createAuth(new AuthData("token123", "sophia"));
+        assertNotNull(cache.getAuth("token123"));
+
+        cache.deleteAuth("token123");
+        assertNull(cache.getAuth("token123"));
+    }
+
+    @Test
+    public void unknownTokensAreNotCached() throws DataAccessException {
+        assertNull(cache.getAuth("nope"));
+        assertNull(cache.getAuth("nope"));
+        assertEquals(0, cache.getStats().size());
+        assertEquals(2, cache.getStats().misses());
+    }
+
+    @Test
+    public void sizeIsBounded() throws DataAccessException {
+        for (int i = 0; i < 5; i++) {
+            cache.createAuth(new AuthData("token" + i, "sophia"));
+        }
+        assertTrue(cache.getStats().size() <= 2);
+        // Evicted tokens still work, they're just looked up again
+        assertNotNull(cache.getAuth("token0"));
+    }
+
+    @Test
+    public void clearInvalidatesEverything() throws DataAccessException {
+        cache.createAuth(new AuthData("token123", "sophia"));
+        cache.clear();
+        assertNull(cache.getAuth("token123"));
+    }
+}
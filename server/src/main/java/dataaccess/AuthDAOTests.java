@@ -6,11 +6,16 @@ import org.junit.jupiter.api.*;
 import static org.junit.jupiter.api.Assertions.*;
 
 public class AuthDAOTests {
-    private SQLDataAccess database;
+    private DataAccess database;
+
+    // Other DataAccess implementations run these same tests by overriding this
+    protected DataAccess newDataAccess() throws DataAccessException {
+        return new SQLDataAccess();
+    }
 
     @BeforeEach
     public void setup() throws DataAccessException {
-        database = new SQLDataAccess();
+        database = newDataAccess();
         database.clear();
         database.createUser(new UserData("sophia", "pw", "s@e.com"));
     }
@@ -0,0 +1,469 @@
+package dataaccess;
+
+import chess.ChessGame;
+import chess.ChessMove;
+import chess.GameCodec;
+import model.GameData;
+import model.GameSummary;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * Keeps games that are being played in memory in front of another DataAccess (normally
+ * SQLDataAccess) and writes their updates back in the background.
+ * <p>
+ * getGame is answered from memory once a game has been loaded, and updateGame only changes
+ * the copy in memory, so a game getting many moves in a row is written once per flush
+ * instead of once per move. The copy in memory is kept as GameCodec bytes and every getGame
+ * decodes its own ChessGame, so no two requests (or a request and the flusher) ever share
+ * a board. Flushes run every flushInterval, or sooner once flushAfterUpdates
+ * updates are waiting, and write all waiting games in one batch. A game that just ended
+ * (checkmate or stalemate) is written straight away, as is everything on {@link #close()}.
+ * <p>
+ * At most maxCachedGames games are kept, and games nobody has touched for idleEviction are
+ * dropped. Only games with nothing left to write are ever dropped, so a read never sees an
+ * older game than the last update.
+ * <p>
+ * Listings and getGameByName go to the wrapped DataAccess. Before they do, the games whose
+ * players or name have changed are written, so listings see every join; moves don't change
+ * what a listing shows, so they keep waiting for the next flush. Users and auth tokens go
+ * straight through.
+ * <p>
+ * Make one with {@link #start(DataAccess, Config)}, which also starts the background flushes.
+ */
+public class CachingDataAccess extends ForwardingDataAccess implements AutoCloseable {
+
+    /**
+     * @param flushIntervalMillis how often waiting updates are written
+     * @param flushAfterUpdates   write early once this many updates are waiting
+     * @param maxCachedGames      most games kept in memory (a game is around 1 KB)
+     * @param idleEvictionMillis  drop games not read or updated for this long, 0 to keep them
+     */
+    public record Config(long flushIntervalMillis, int flushAfterUpdates, int maxCachedGames, long idleEvictionMillis) {
+        public Config {
+            if (flushIntervalMillis < 1 || flushAfterUpdates < 1 || maxCachedGames < 1 || idleEvictionMillis < 0) {
+                throw new IllegalArgumentException("cache settings must be positive");
+            }
+        }
+
+        public static Config defaults() {
+            return new Config(1_000, 500, 10_000, 600_000);
+        }
+    }
+
+    public record Stats(int cachedGames, int dirtyGames, long hits, long misses,
+                        long updates, long gamesWritten, long flushes) {
+    }
+
+    private static final Logger LOG = LoggerFactory.getLogger(CachingDataAccess.class);
+
+    private static final class Entry {
+        // Replaced, never changed, so they can be read under the lock and used outside it
+        GameSummary summary;
+        byte[] state; // GameCodec bytes, null if there's no game
+        int movesPlayed; // the game's, so recordMove can check it without decoding state
+        long lastAccess;
+        // Bumped by every update; the game is dirty while it's ahead of what's been written
+        long version;
+        long writtenVersion;
+        // The last version that changed the players or name
+        long listingVersion;
+
+        void set(GameData game, byte[] state) {
+            this.summary = summaryOf(game);
+            this.state = state;
+            this.movesPlayed = game.game() == null ? 0 : game.game().getMovesPlayed();
+        }
+
+        boolean isDirty() {
+            return version != writtenVersion;
+        }
+
+        boolean isListingDirty() {
+            return listingVersion > writtenVersion;
+        }
+    }
+
+    private final Config config;
+
+    // Access ordered, so the first entries are the ones to evict. Guarded by 'this'.
+    private final LinkedHashMap<Integer, Entry> games = new LinkedHashMap<>(16, 0.75f, true);
+    private int pendingUpdates;
+    // Bumped whenever games are dropped, so a load that raced with an eviction isn't cached
+    private long evictions;
+
+    // Only one flush writes at a time, so an older copy of a game can't land after a newer one
+    private final ReentrantLock flushLock = new ReentrantLock();
+    private final ScheduledExecutorService flusher;
+
+    private final LongAdder hits = new LongAdder();
+    private final LongAdder misses = new LongAdder();
+    private final LongAdder updates = new LongAdder();
+    private final LongAdder gamesWritten = new LongAdder();
+    private final LongAdder flushes = new LongAdder();
+
+    private CachingDataAccess(DataAccess delegate, Config config) {
+        super(delegate);
+        this.config = config;
+        flusher = Executors.newSingleThreadScheduledExecutor(r -> {
+            Thread t = new Thread(r, "game-cache-flusher");
+            t.setDaemon(true);
+            return t;
+        });
+    }
+
+    public static CachingDataAccess start(DataAccess delegate) {
+        return start(delegate, Config.defaults());
+    }
+
+    /**
+     * Puts a cache in front of delegate and starts flushing it every flushInterval
+     */
+    public static CachingDataAccess start(DataAccess delegate, Config config) {
+        CachingDataAccess cache = new CachingDataAccess(delegate, config);
+        cache.flusher.scheduleWithFixedDelay(cache::backgroundFlush,
+                config.flushIntervalMillis(), config.flushIntervalMillis(), TimeUnit.MILLISECONDS);
+        return cache;
+    }
+
+    // ---- Games ----
+    @Override
+    public GameData createGame(GameData game) throws DataAccessException {
+        GameData created = delegate.createGame(game); // needs the database to hand out the id
+        byte[] state = encode(created.game());
+        synchronized (this) {
+            Entry entry = new Entry();
+            entry.set(created, state);
+            entry.lastAccess = System.currentTimeMillis();
+            games.put(created.gameID(), entry);
+            evictOverflow();
+        }
+        return created;
+    }
+
+    /**
+     * @return a copy of the game that's the caller's own to change
+     */
+    @Override
+    public GameData getGame(int gameID) throws DataAccessException {
+        GameSummary summary = null;
+        byte[] state = null;
+        long evictionsBefore;
+        synchronized (this) {
+            Entry entry = games.get(gameID);
+            if (entry != null) {
+                entry.lastAccess = System.currentTimeMillis();
+                summary = entry.summary;
+                state = entry.state;
+            }
+            evictionsBefore = evictions;
+        }
+        if (summary != null) {
+            hits.increment();
+            return toGameData(summary, state);
+        }
+        misses.increment();
+        GameData game = delegate.getGame(gameID);
+        if (game != null) {
+            state = encode(game.game());
+            synchronized (this) {
+                // If it was updated (and maybe written and evicted) while we were loading,
+                // what we loaded may be older than what the cache last had
+                if (!games.containsKey(gameID) && evictions == evictionsBefore) {
+                    Entry entry = new Entry();
+                    entry.set(game, state);
+                    entry.lastAccess = System.currentTimeMillis();
+                    games.put(gameID, entry);
+                    evictOverflow();
+                }
+            }
+        }
+        return game;
+    }
+
+    @Override
+    public GameData getGameByName(String gameName) throws DataAccessException {
+        flushListings();
+        GameData game = delegate.getGameByName(gameName);
+        return game == null ? null : withCachedState(game);
+    }
+
+    @Override
+    public Collection<GameData> listGames() throws DataAccessException {
+        flushListings();
+        Collection<GameData> listed = delegate.listGames();
+        List<GameData> games = new ArrayList<>(listed.size());
+        for (GameData game : listed) {
+            games.add(withCachedState(game));
+        }
+        return games;
+    }
+
+    @Override
+    public List<GameSummary> listGameSummaries(GameQuery query) throws DataAccessException {
+        flushListings();
+        return delegate.listGameSummaries(query);
+    }
+
+    /**
+     * Keeps a snapshot of game; the caller can go on using its own copy. Like the other
+     * DataAccesses, does nothing if the game doesn't exist.
+     */
+    @Override
+    public void updateGame(GameData game) throws DataAccessException {
+        update(game, false);
+    }
+
+    @Override
+    public void updateGames(Collection<GameData> games) throws DataAccessException {
+        for (GameData game : games) {
+            updateGame(game);
+        }
+    }
+
+    // Moves collapse into one write per flush here, which beats journaling each of them. The
+    // move is checked against the cached game under the same lock that stores it, so of two
+    // moves made on one read only the first lands.
+    @Override
+    public void recordMove(GameData game, ChessMove move) throws DataAccessException {
+        update(game, true);
+    }
+
+    private void update(GameData game, boolean isMove) throws DataAccessException {
+        updates.increment();
+        // Both on the caller's own copy, before the cache has anything to share
+        byte[] state = encode(game.game());
+        boolean over = isOver(game.game());
+        GameSummary summary = summaryOf(game);
+
+        boolean flushNow;
+        GameData loaded = null;
+        byte[] loadedState = null;
+        long evictionsBefore = 0;
+        while (true) {
+            synchronized (this) {
+                Entry entry = games.get(game.gameID());
+                // A game that isn't cached is loaded first, so an id the wrapped DataAccess has
+                // never heard of doesn't turn into a game here. Not if it was evicted meanwhile,
+                // though: what we loaded may be older than what got written before that.
+                if (entry == null && loaded != null && evictions == evictionsBefore) {
+                    entry = new Entry();
+                    entry.set(loaded, loadedState);
+                    games.put(game.gameID(), entry);
+                }
+                if (entry != null) {
+                    if (isMove) {
+                        GameVersions.checkNextMove(entry.movesPlayed, game);
+                    }
+                    entry.version++;
+                    if (!summary.equals(entry.summary)) {
+                        entry.listingVersion = entry.version;
+                    }
+                    if (!isMove && entry.movesPlayed > GameVersions.movesPlayed(game.game())) {
+                        entry.summary = summary; // from an older read, so the board we have is newer
+                    } else {
+                        entry.set(game, state);
+                    }
+                    entry.lastAccess = System.currentTimeMillis();
+                    pendingUpdates++;
+                    flushNow = pendingUpdates >= config.flushAfterUpdates() || games.size() > config.maxCachedGames();
+                    evictOverflow();
+                    break;
+                }
+                evictionsBefore = evictions;
+            }
+            loaded = delegate.getGame(game.gameID());
+            if (loaded == null) {
+                return;
+            }
+            loadedState = encode(loaded.game());
+        }
+
+        if (over) {
+            flush(); // don't leave a finished game only in memory
+        } else if (flushNow) {
+            flusher.execute(this::backgroundFlush);
+        }
+    }
+
+    // ---- Utils ----
+    @Override
+    public void clear() throws DataAccessException {
+        flushLock.lock();
+        try {
+            synchronized (this) {
+                games.clear(); // being cleared anyway, no point writing them first
+                pendingUpdates = 0;
+                evictions++;
+            }
+            delegate.clear();
+        } finally {
+            flushLock.unlock();
+        }
+    }
+
+    /**
+     * Writes every waiting update to the wrapped DataAccess before returning
+     */
+    public void flush() throws DataAccessException {
+        flush(false);
+    }
+
+    // Just the games a listing would show differently, so a lobby poll doesn't write every
+    // board that's had a move since the last flush
+    private void flushListings() throws DataAccessException {
+        flush(true);
+    }
+
+    private void flush(boolean listingsOnly) throws DataAccessException {
+        flushLock.lock();
+        try {
+            List<GameSummary> summaries = new ArrayList<>();
+            List<byte[]> states = new ArrayList<>();
+            List<Entry> entries = new ArrayList<>();
+            List<Long> versions = new ArrayList<>();
+            synchronized (this) {
+                for (Entry entry : games.values()) {
+                    if (listingsOnly ? entry.isListingDirty() : entry.isDirty()) {
+                        summaries.add(entry.summary);
+                        states.add(entry.state);
+                        entries.add(entry);
+                        versions.add(entry.version);
+                    }
+                }
+                if (!listingsOnly) {
+                    pendingUpdates = 0;
+                }
+            }
+            if (entries.isEmpty()) {
+                return;
+            }
+
+            // Decoded here, so the delegate gets games nobody else has
+            List<GameData> batch = new ArrayList<>(entries.size());
+            for (int i = 0; i < entries.size(); i++) {
+                batch.add(toGameData(summaries.get(i), states.get(i)));
+            }
+
+            delegate.updateGames(batch);
+            flushes.increment();
+            gamesWritten.add(batch.size());
+
+            synchronized (this) {
+                for (int i = 0; i < entries.size(); i++) {
+                    Entry entry = entries.get(i);
+                    entry.writtenVersion = Math.max(entry.writtenVersion, versions.get(i));
+                }
+                evictOverflow();
+            }
+        } finally {
+            flushLock.unlock();
+        }
+    }
+
+    public synchronized Stats getStats() {
+        int dirty = 0;
+        for (Entry entry : games.values()) {
+            if (entry.isDirty()) {
+                dirty++;
+            }
+        }
+        return new Stats(games.size(), dirty, hits.sum(), misses.sum(),
+                updates.sum(), gamesWritten.sum(), flushes.sum());
+    }
+
+    /**
+     * Stops the background flushes and writes whatever is still waiting
+     */
+    @Override
+    public void close() throws DataAccessException {
+        flusher.shutdown();
+        try {
+            flusher.awaitTermination(10, TimeUnit.SECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        flush();
+    }
+
+    // ----- Internals -----
+
+    private void backgroundFlush() {
+        try {
+            flush();
+            evictIdle();
+        } catch (DataAccessException | RuntimeException e) {
+            // Updates stay dirty and get retried next time
+            LOG.warn("Game cache flush failed, will retry", e);
+        }
+    }
+
+    private synchronized void evictIdle() {
+        if (config.idleEvictionMillis() == 0) {
+            return;
+        }
+        long cutoff = System.currentTimeMillis() - config.idleEvictionMillis();
+        if (games.values().removeIf(entry -> !entry.isDirty() && entry.lastAccess < cutoff)) {
+            evictions++;
+        }
+    }
+
+    // Drops the least recently used clean games until we're back under the limit. If what's
+    // left over the limit is all waiting to be written, the next flush makes it evictable.
+    private void evictOverflow() {
+        int excess = games.size() - config.maxCachedGames();
+        Iterator<Entry> it = games.values().iterator();
+        while (excess > 0 && it.hasNext()) {
+            if (!it.next().isDirty()) {
+                it.remove();
+                excess--;
+                evictions++;
+            }
+        }
+    }
+
+    // The players and name from the database, the board from the cache if it's newer
+    private GameData withCachedState(GameData game) {
+        byte[] state;
+        synchronized (this) {
+            Entry entry = games.get(game.gameID());
+            if (entry == null) {
+                return game;
+            }
+            state = entry.state;
+        }
+        return new GameData(game.gameID(), game.whiteUsername(), game.blackUsername(), game.gameName(),
+                state == null ? null : GameCodec.decode(state));
+    }
+
+    private static GameSummary summaryOf(GameData game) {
+        return new GameSummary(game.gameID(), game.whiteUsername(), game.blackUsername(), game.gameName());
+    }
+
+    private static byte[] encode(ChessGame game) {
+        return game == null ? null : GameCodec.encode(game);
+    }
+
+    private static GameData toGameData(GameSummary summary, byte[] state) {
+        return new GameData(summary.gameID(), summary.whiteUsername(), summary.blackUsername(),
+                summary.gameName(), state == null ? null : GameCodec.decode(state));
+    }
+
+    private static boolean isOver(ChessGame game) {
+        if (game == null || game.getTeamTurn() == null) {
+            return false;
+        }
+        return game.isInCheckmate(game.getTeamTurn()) || game.isInStalemate(game.getTeamTurn());
+    }
+}
@@ -0,0 +1,161 @@
+package dataaccess;
+
+import chess.ChessGame;
+import chess.ChessMove;
+import chess.ChessPosition;
+import model.GameData;
+import model.UserData;
+import org.junit.jupiter.api.*;
+import static org.junit.jupiter.api.Assertions.*;
+
+public class CachingDataAccessTests {
+    private SQLDataAccess database;
+    private CachingDataAccess cache;
+
+    @BeforeEach
+    public void setup() throws DataAccessException {
+        database = new SQLDataAccess();
+        database.clear();
+        database.createUser(new UserData("white", "pw", "w@e.com"));
+        // Long interval so only the test decides when things get written
+        cache = CachingDataAccess.start(database, new CachingDataAccess.Config(60_000, 1_000, 2, 0));
+    }
+
+    @AfterEach
+    public void tearDown() throws DataAccessException {
+        cache.close();
+    }
+
+    @Test
+    public void updatesStayInMemoryUntilFlushed() throws Exception {
+        GameData game = cache.createGame(new GameData(0, null, null, "Cached", new ChessGame()));
+        GameData joined = new GameData(game.gameID(), "white", null, "Cached", game.game());
+        cache.updateGame(joined);
+        cache.updateGame(joined);
+
+        assertEquals(joined, cache.getGame(game.gameID()));
+        assertNull(database.getGame(game.gameID()).whiteUsername());
+
+        cache.flush();
+        assertEquals("white", database.getGame(game.gameID()).whiteUsername());
+        assertEquals(1, cache.getStats().gamesWritten()); // two updates, one write
+    }
+
+    @Test
+    public void finishedGameIsWrittenRightAway() throws Exception {
+        GameData game = cache.createGame(new GameData(0, null, null, "Fools Mate", new ChessGame()));
+        ChessGame chess = game.game();
+        chess.makeMove(new ChessMove(new ChessPosition(2, 6), new ChessPosition(3, 6), null));
+        chess.makeMove(new ChessMove(new ChessPosition(7, 5), new ChessPosition(5, 5), null));
+        chess.makeMove(new ChessMove(new ChessPosition(2, 7), new ChessPosition(4, 7), null));
+        chess.makeMove(new ChessMove(new ChessPosition(8, 4), new ChessPosition(4, 8), null));
+
+        cache.updateGame(game);
+        assertTrue(database.getGame(game.gameID()).game().isInCheckmate(ChessGame.TeamColor.WHITE));
+    }
+
+    @Test
+    public void evictionNeverLosesUpdates() throws Exception {
+        int[] ids = new int[3];
+        for (int i = 0; i < ids.length; i++) {
+            GameData game = cache.createGame(new GameData(0, null, null, "Game" + i, new ChessGame()));
+            cache.updateGame(new GameData(game.gameID(), "white", null, game.gameName(), game.game()));
+            ids[i] = game.gameID();
+        }
+
+        cache.flush();
+        assertTrue(cache.getStats().cachedGames() <= 2);
+        assertEquals(0, cache.getStats().dirtyGames());
+        for (int id : ids) {
+            assertEquals("white", cache.getGame(id).whiteUsername());
+            assertEquals("white", database.getGame(id).whiteUsername());
+        }
+    }
+
+    @Test
+    public void listingsSeeUnflushedUpdates() throws Exception {
+        GameData game = cache.createGame(new GameData(0, null, null, "Listed", new ChessGame()));
+        cache.updateGame(new GameData(game.gameID(), "white", null, "Listed", game.game()));
+
+        assertEquals("white", cache.listGameSummaries().iterator().next().whiteUsername());
+    }
+
+    @Test
+    public void everyReaderGetsItsOwnGame() throws Exception {
+        GameData game = cache.createGame(new GameData(0, null, null, "Shared", new ChessGame()));
+        GameData first = cache.getGame(game.gameID());
+        first.game().makeMove(new ChessMove(new ChessPosition(2, 5), new ChessPosition(4, 5), null));
+
+        assertEquals(new ChessGame(), cache.getGame(game.gameID()).game());
+        assertNotSame(cache.getGame(game.gameID()).game(), cache.getGame(game.gameID()).game());
+
+        // and changing a game after handing it to updateGame doesn't change what was stored
+        cache.updateGame(first);
+        first.game().makeMove(new ChessMove(new ChessPosition(7, 5), new ChessPosition(5, 5), null));
+        assertEquals(ChessGame.TeamColor.BLACK, cache.getGame(game.gameID()).game().getTeamTurn());
+    }
+
+    @Test
+    public void listingsOnlyWriteGamesWhosePlayersChanged() throws Exception {
+        GameData game = cache.createGame(new GameData(0, null, null, "Lobby", new ChessGame()));
+        ChessGame chess = cache.getGame(game.gameID()).game();
+        chess.makeMove(new ChessMove(new ChessPosition(2, 5), new ChessPosition(4, 5), null));
+        cache.updateGame(new GameData(game.gameID(), null, null, "Lobby", chess));
+
+        cache.listGameSummaries(new GameQuery(0, 10, false, null, null));
+        assertEquals(new ChessGame(), database.getGame(game.gameID()).game()); // the move is still waiting
+
+        cache.updateGame(new GameData(game.gameID(), "white", null, "Lobby", chess));
+        cache.listGameSummaries(new GameQuery(0, 10, false, null, null));
+        GameData written = database.getGame(game.gameID());
+        assertEquals("white", written.whiteUsername());
+        assertEquals(chess, written.game());
+        assertEquals(0, cache.getStats().dirtyGames());
+    }
+
+    @Test
+    public void updatingAMissingGameDoesNothing() throws Exception {
+        cache.updateGame(new GameData(12345, "white", null, "Nope", new ChessGame()));
+
+        assertNull(cache.getGame(12345));
+        assertTrue(cache.listGameSummaries().isEmpty());
+        cache.flush();
+        assertNull(database.getGame(12345));
+        assertEquals(0, cache.getStats().cachedGames());
+    }
+
+    @Test
+    public void updatingAnEvictedGameKeepsTheUpdate() throws Exception {
+        GameData game = cache.createGame(new GameData(0, null, null, "Evicted", new ChessGame()));
+        cache.createGame(new GameData(0, null, null, "Other1", new ChessGame()));
+        cache.createGame(new GameData(0, null, null, "Other2", new ChessGame())); // pushes the first one out
+
+        cache.updateGame(new GameData(game.gameID(), "white", null, "Evicted", game.game()));
+        assertEquals("white", cache.getGame(game.gameID()).whiteUsername());
+        cache.flush();
+        assertEquals("white", database.getGame(game.gameID()).whiteUsername());
+    }
+
+    @Test
+    public void movesAndJoinsFromOldReadsDontLoseMoves() throws Exception {
+        GameData game = cache.createGame(new GameData(0, null, null, "Busy", new ChessGame()));
+        GameData first = cache.getGame(game.gameID());
+        GameData second = cache.getGame(game.gameID());
+        GameData join = cache.getGame(game.gameID());
+
+        var e4 = new ChessMove(new ChessPosition(2, 5), new ChessPosition(4, 5), null);
+        first.game().makeMove(e4);
+        cache.recordMove(first, e4);
+        var d4 = new ChessMove(new ChessPosition(2, 4), new ChessPosition(4, 4), null);
+        second.game().makeMove(d4);
+        assertThrows(GameChangedException.class, () -> cache.recordMove(second, d4));
+
+        cache.updateGame(new GameData(game.gameID(), "white", null, "Busy", join.game()));
+        GameData stored = cache.getGame(game.gameID());
+        assertEquals(first.game(), stored.game());
+        assertEquals("white", stored.whiteUsername());
+
+        cache.flush();
+        assertEquals(first.game(), database.getGame(game.gameID()).game());
+    }
+}
@@ -0,0 +1,236 @@
+package dataaccess;
+
+import chess.ChessMove;
+import chess.GameCodec;
+import model.AuthData;
+import model.GameData;
+import model.GameSummary;
+import model.UserData;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentSkipListMap;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * An in-memory DataAccess that's safe to share between request threads, for servers that
+ * don't need their data to outlive the process (tests, one-off tournaments).
+ * <p>
+ * Users and auth tokens live in ConcurrentHashMaps, where each write is a single atomic
+ * operation on one key. Games live in a ConcurrentSkipListMap so they stay in id order for
+ * paged listings, and ids come from an AtomicInteger. A game is kept as GameCodec bytes and
+ * every read decodes its own ChessGame, so request threads never share a board, and what's
+ * stored can't change under us when a caller plays on with the game it passed in.
+ * <p>
+ * Updating a game reads what's stored, checks it (recordMove turns away a move made on a
+ * game that's had a move since, and updateGame keeps a board with more moves than the
+ * update's) and writes the result back. The skip list can't do that atomically, so it's done
+ * under the game's lock: two updates to one game take turns, and updates to different games
+ * rarely share a lock. Reads take no locks at all.
+ * <p>
+ * Everything lives in one Store, and clear() swaps in a fresh one rather than emptying the
+ * old one, so it never has to wait for (or hold off) the writes in flight. A write that races
+ * with it lands in the store being thrown away, as if it had happened just before the clear.
+ * Like the database, creating a user or token that already exists fails instead of
+ * overwriting it, and updating a game that doesn't exist does nothing.
+ */
+public class ConcurrentMemoryDAO implements DataAccess {
+
+    // A game as stored: the parts a listing shows, and the board as GameCodec bytes
+    private record StoredGame(GameSummary summary, byte[] state, int movesPlayed) {
+        static StoredGame of(GameData game) {
+            return new StoredGame(
+                    new GameSummary(game.gameID(), game.whiteUsername(), game.blackUsername(), game.gameName()),
+                    game.game() == null ? null : GameCodec.encode(game.game()),
+                    GameVersions.movesPlayed(game.game()));
+        }
+
+        GameData toGameData() {
+            return new GameData(summary.gameID(), summary.whiteUsername(), summary.blackUsername(),
+                    summary.gameName(), state == null ? null : GameCodec.decode(state));
+        }
+    }
+
+    private static final class Store {
+        final ConcurrentHashMap<String, UserData> users = new ConcurrentHashMap<>();
+        final ConcurrentHashMap<String, AuthData> authTokens = new ConcurrentHashMap<>();
+        final ConcurrentSkipListMap<Integer, StoredGame> games = new ConcurrentSkipListMap<>();
+        final AtomicInteger nextGameID = new AtomicInteger(1);
+    }
+
+    private volatile Store store = new Store();
+
+    // A game's lock is gameLocks[id % GAME_LOCKS]; a lock per game would have to be created
+    // and cleaned up along with the game for no real gain
+    private static final int GAME_LOCKS = 64;
+    private final ReentrantLock[] gameLocks = new ReentrantLock[GAME_LOCKS];
+
+    public ConcurrentMemoryDAO() {
+        for (int i = 0; i < GAME_LOCKS; i++) {
+            gameLocks[i] = new ReentrantLock();
+        }
+    }
+
+    // ---- Users ----
+    @Override
+    public void createUser(UserData user) throws DataAccessException {
+        if (user.username() == null || user.password() == null) {
+            throw new DataAccessException("Unable to create user: missing username or password");
+        }
+        if (store.users.putIfAbsent(user.username(), user) != null) {
+            throw new DataAccessException("Unable to create user: " + user.username() + " already exists");
+        }
+    }
+
+    @Override
+    public UserData getUser(String username) {
+        return username == null ? null : store.users.get(username);
+    }
+
+    @Override
+    public Collection<UserData> getAllUsers() {
+        return List.copyOf(store.users.values());
+    }
+
+    @Override
+    public void updatePassword(String username, String hashedPassword) {
+        if (username != null) {
+            store.users.computeIfPresent(username, (name, user) -> new UserData(name, hashedPassword, user.email()));
+        }
+    }
+
+    // ---- Auth ----
+    @Override
+    public AuthData createAuth(AuthData auth) throws DataAccessException {
+        if (auth.authToken() == null) {
+            throw new DataAccessException("Unable to create auth token: missing token");
+        }
+        if (store.authTokens.putIfAbsent(auth.authToken(), auth) != null) {
+            throw new DataAccessException("Unable to create auth token: token already exists");
+        }
+        return auth;
+    }
+
+    @Override
+    public AuthData getAuth(String authToken) {
+        return authToken == null ? null : store.authTokens.get(authToken);
+    }
+
+    @Override
+    public void deleteAuth(String authToken) {
+        if (authToken != null) {
+            store.authTokens.remove(authToken);
+        }
+    }
+
+    // ---- Games ----
+    @Override
+    public GameData createGame(GameData game) throws DataAccessException {
+        if (game.gameName() == null) {
+            throw new DataAccessException("Unable to create game: missing name");
+        }
+        Store current = store;
+        int id = current.nextGameID.getAndIncrement();
+        GameData newGame = new GameData(id,
+                game.whiteUsername(),
+                game.blackUsername(),
+                game.gameName(),
+                game.game());
+        current.games.put(id, StoredGame.of(newGame));
+        return newGame;
+    }
+
+    /**
+     * @return a copy of the game that's the caller's own to change
+     */
+    @Override
+    public GameData getGame(int gameID) {
+        StoredGame stored = store.games.get(gameID);
+        return stored == null ? null : stored.toGameData();
+    }
+
+    @Override
+    public GameData getGameByName(String gameName) {
+        for (StoredGame g : store.games.values()) {
+            if (g.summary().gameName().equalsIgnoreCase(gameName)) {
+                return g.toGameData();
+            }
+        }
+        return null;
+    }
+
+    @Override
+    public Collection<GameData> listGames() {
+        List<GameData> games = new ArrayList<>();
+        for (StoredGame g : store.games.values()) {
+            games.add(g.toGameData());
+        }
+        return games;
+    }
+
+    @Override
+    public List<GameSummary> listGameSummaries(GameQuery query) {
+        List<GameSummary> page = new ArrayList<>();
+        for (StoredGame stored : store.games.tailMap(query.afterGameID(), false).values()) {
+            GameSummary g = stored.summary();
+            if (query.matches(g.gameID(), g.whiteUsername(), g.blackUsername(), g.gameName())) {
+                page.add(g);
+                if (page.size() == query.limit()) {
+                    break;
+                }
+            }
+        }
+        return page;
+    }
+
+    @Override
+    public void updateGame(GameData game) {
+        ConcurrentSkipListMap<Integer, StoredGame> games = store.games;
+        StoredGame updated = StoredGame.of(game); // encoded before taking the lock
+        ReentrantLock lock = lockFor(game.gameID());
+        lock.lock();
+        try {
+            StoredGame stored = games.get(game.gameID());
+            if (stored == null) {
+                return; // won't bring back a game that clear() removed
+            }
+            if (stored.movesPlayed() > updated.movesPlayed()) {
+                // From an older read: take the players and name, keep the board we have
+                updated = new StoredGame(updated.summary(), stored.state(), stored.movesPlayed());
+            }
+            games.put(game.gameID(), updated);
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    @Override
+    public void recordMove(GameData game, ChessMove move) throws DataAccessException {
+        ConcurrentSkipListMap<Integer, StoredGame> games = store.games;
+        StoredGame updated = StoredGame.of(game); // encoded before taking the lock
+        ReentrantLock lock = lockFor(game.gameID());
+        lock.lock();
+        try {
+            StoredGame stored = games.get(game.gameID());
+            if (stored == null) {
+                return;
+            }
+            GameVersions.checkNextMove(stored.movesPlayed(), game);
+            games.put(game.gameID(), updated);
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    private ReentrantLock lockFor(int gameID) {
+        return gameLocks[Math.floorMod(gameID, GAME_LOCKS)];
+    }
+
+    @Override
+    public void clear() {
+        store = new Store();
+    }
+}
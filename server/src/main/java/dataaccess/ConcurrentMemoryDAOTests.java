@@ -0,0 +1,149 @@
+package dataaccess;
+
+import chess.ChessGame;
+import chess.ChessMove;
+import chess.ChessPiece;
+import chess.ChessPosition;
+import model.AuthData;
+import model.GameData;
+import model.UserData;
+import org.junit.jupiter.api.*;
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+public class ConcurrentMemoryDAOTests {
+    private static final int THREADS = 8;
+
+    private ConcurrentMemoryDAO database;
+
+    @BeforeEach
+    public void setup() {
+        database = new ConcurrentMemoryDAO();
+    }
+
+    @Test
+    public void concurrentCreatesGetUniqueIds() throws Exception {
+        ExecutorService pool = Executors.newFixedThreadPool(THREADS);
+        try {
+            List<Future<List<Integer>>> results = new ArrayList<>();
+            for (int t = 0; t < THREADS; t++) {
+                results.add(pool.submit(() -> {
+                    List<Integer> ids = new ArrayList<>();
+                    for (int i = 0; i < 1000; i++) {
+                        ids.add(database.createGame(new GameData(0, null, null, "g", new ChessGame())).gameID());
+                    }
+                    return ids;
+                }));
+            }
+            Set<Integer> ids = new HashSet<>();
+            for (Future<List<Integer>> result : results) {
+                ids.addAll(result.get());
+            }
+            assertEquals(THREADS * 1000, ids.size());
+            assertEquals(THREADS * 1000, database.listGames().size());
+        } finally {
+            pool.shutdownNow();
+        }
+    }
+
+    @Test
+    public void movesFromManyThreadsAllCount() throws Exception {
+        int gameID = database.createGame(new GameData(0, "white", "black", "Busy", new ChessGame())).gameID();
+        ExecutorService pool = Executors.newFixedThreadPool(THREADS);
+        try {
+            List<Future<Integer>> results = new ArrayList<>();
+            for (int t = 0; t < THREADS; t++) {
+                results.add(pool.submit(() -> {
+                    int landed = 0;
+                    for (int i = 0; i < 50; i++) {
+                        GameData game = database.getGame(gameID);
+                        ChessMove move = anyKnightMove(game.game());
+                        game.game().makeMove(move);
+                        try {
+                            database.recordMove(game, move);
+                            landed++;
+                        } catch (GameChangedException e) {
+                            // someone else moved first; this one was checked against an old board
+                        }
+                    }
+                    return landed;
+                }));
+            }
+            int landed = 0;
+            for (Future<Integer> result : results) {
+                landed += result.get();
+            }
+
+            ChessGame stored = database.getGame(gameID).game();
+            assertTrue(landed > 0);
+            assertEquals(landed, stored.getMovesPlayed());
+            assertEquals(landed % 2 == 0 ? ChessGame.TeamColor.WHITE : ChessGame.TeamColor.BLACK,
+                    stored.getTeamTurn());
+        } finally {
+            pool.shutdownNow();
+        }
+    }
+
+    // Knights always have somewhere to go while nothing else moves
+    private static ChessMove anyKnightMove(ChessGame game) {
+        for (int row = 1; row <= 8; row++) {
+            for (int col = 1; col <= 8; col++) {
+                ChessPosition from = new ChessPosition(row, col);
+                ChessPiece piece = game.getBoard().getPiece(from);
+                if (piece != null && piece.getTeamColor() == game.getTeamTurn()
+                        && piece.getPieceType() == ChessPiece.PieceType.KNIGHT) {
+                    return game.validMoves(from).iterator().next();
+                }
+            }
+        }
+        throw new AssertionError("no knight to move");
+    }
+
+    @Test
+    public void everyReaderGetsItsOwnGame() throws Exception {
+        GameData game = database.createGame(new GameData(0, null, null, "Shared", new ChessGame()));
+        assertNotSame(database.getGame(game.gameID()).game(), database.getGame(game.gameID()).game());
+
+        game.game().makeMove(new ChessMove(new ChessPosition(2, 5), new ChessPosition(4, 5), null));
+        database.getGame(game.gameID()).game()
+                .makeMove(new ChessMove(new ChessPosition(2, 4), new ChessPosition(4, 4), null));
+        assertEquals(new ChessGame(), database.getGame(game.gameID()).game());
+    }
+
+    @Test
+    public void duplicateUserFails() throws DataAccessException {
+        database.createUser(new UserData("sophia", "pw", "s@e.com"));
+        assertThrows(DataAccessException.class, () -> database.createUser(new UserData("sophia", "pw2", "x@e.com")));
+        assertEquals("pw", database.getUser("sophia").password());
+    }
+
+    @Test
+    public void duplicateTokenFails() throws DataAccessException {
+        database.createAuth(new AuthData("token123", "sophia"));
+        assertThrows(DataAccessException.class, () -> database.createAuth(new AuthData("token123", "other")));
+    }
+
+    @Test
+    public void updateAfterClearDoesNothing() throws DataAccessException {
+        GameData game = database.createGame(new GameData(0, null, null, "Gone", new ChessGame()));
+        database.clear();
+        database.updateGame(new GameData(game.gameID(), "white", null, "Gone", game.game()));
+        assertNull(database.getGame(game.gameID()));
+    }
+
+    @Test
+    public void pagesInIdOrder() throws DataAccessException {
+        for (int i = 0; i < 5; i++) {
+            database.createGame(new GameData(0, i % 2 == 0 ? "white" : null, null, "Game" + i, new ChessGame()));
+        }
+        var page = database.listGameSummaries(new GameQuery(1, 2, false, "white", null));
+        assertEquals(List.of(3, 5), page.stream().map(g -> g.gameID()).toList());
+    }
+}
@@ -0,0 +1,334 @@
+package dataaccess;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.SQLException;
+import java.sql.SQLTimeoutException;
+import java.util.ArrayDeque;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.Condition;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * A small JDBC connection pool so DAO calls reuse open MySQL connections instead of
+ * doing a TCP handshake and login for every query.
+ * <p>
+ * Callers use the connections exactly like DriverManager ones: closing a pooled connection
+ * hands it back to the pool instead of closing it. Idle connections are checked with
+ * {@link Connection#isValid(int)} before being handed out again, connections older than
+ * the max lifetime are replaced, and connections held longer than the leak threshold are
+ * reported along with the stack trace of whoever borrowed them.
+ */
+public class ConnectionPool implements AutoCloseable {
+    private static final Logger LOG = LoggerFactory.getLogger(ConnectionPool.class);
+
+    /**
+     * Pool settings. Times are in milliseconds; a leak threshold of 0 turns leak detection off.
+     */
+    public record Config(String url, String username, String password,
+                         int minSize, int maxSize,
+                         long connectionTimeoutMillis,
+                         long validationIntervalMillis,
+                         int validationTimeoutSeconds,
+                         long maxLifetimeMillis,
+                         long leakDetectionThresholdMillis) {
+        public Config {
+            if (minSize < 0 || maxSize < 1 || minSize > maxSize) {
+                throw new IllegalArgumentException("pool needs 0 <= minSize <= maxSize and maxSize >= 1");
+            }
+        }
+    }
+
+    /**
+     * A snapshot of what the pool is doing. Wait times are how long getConnection blocked
+     * for the lock and a free connection, not the time spent opening or checking one.
+     */
+    public record Metrics(int active, int idle, int total, int waiting,
+                          long connectionsHandedOut, long connectionsCreated, long leaksDetected,
+                          double averageWaitMillis, double maxWaitMillis) {
+    }
+
+    private final Config config;
+
+    // Not fair: it's only held for a few field updates, and fairness would hand it over thread
+    // by thread instead of letting whoever's running take it
+    private final ReentrantLock lock = new ReentrantLock();
+    private final Condition available = lock.newCondition();
+    private final ArrayDeque<PooledConnection> idle = new ArrayDeque<>();
+    private final Set<PooledConnection> active = ConcurrentHashMap.newKeySet();
+    private int total;
+    private int waiting;
+    private boolean closed;
+
+    private final LongAdder handedOut = new LongAdder();
+    private final LongAdder created = new LongAdder();
+    private final LongAdder leaks = new LongAdder();
+    private final LongAdder waitNanos = new LongAdder();
+    private final AtomicLong maxWaitNanos = new AtomicLong();
+
+    private final ScheduledExecutorService housekeeper;
+
+    public ConnectionPool(Config config) {
+        this.config = config;
+        housekeeper = Executors.newSingleThreadScheduledExecutor(r -> {
+            Thread t = new Thread(r, "connection-pool-housekeeper");
+            t.setDaemon(true);
+            return t;
+        });
+        housekeeper.scheduleWithFixedDelay(this::housekeeping, 1, 1, TimeUnit.SECONDS);
+    }
+
+    /**
+     * Gets a connection from the pool, opening a new one if none are idle and the pool isn't
+     * full, otherwise waiting up to the connection timeout for one to be returned.
+     */
+    public Connection getConnection() throws SQLException {
+        long deadline = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(config.connectionTimeoutMillis());
+        long waited = 0;
+
+        while (true) {
+            PooledConnection pooled;
+            long waitStart = System.nanoTime();
+            lock.lock();
+            try {
+                while (!closed && idle.isEmpty() && total >= config.maxSize()) {
+                    long remaining = deadline - System.nanoTime();
+                    if (remaining <= 0) {
+                        throw new SQLTimeoutException("Timed out after " + config.connectionTimeoutMillis()
+                                + "ms waiting for a database connection (" + total + " in use)");
+                    }
+                    waiting++;
+                    try {
+                        available.awaitNanos(remaining);
+                    } catch (InterruptedException e) {
+                        Thread.currentThread().interrupt();
+                        throw new SQLException("Interrupted while waiting for a database connection", e);
+                    } finally {
+                        waiting--;
+                    }
+                }
+                waited += System.nanoTime() - waitStart;
+                if (closed) {
+                    throw new SQLException("Connection pool is closed");
+                }
+                pooled = idle.pollLast(); // most recently used first, it's the least likely to be stale
+                if (pooled == null) {
+                    total++;
+                }
+            } finally {
+                lock.unlock();
+            }
+
+            // Network work happens outside the lock
+            if (pooled == null) {
+                pooled = open();
+            } else if (!isUsable(pooled)) {
+                discard(pooled);
+                continue;
+            }
+
+            pooled.borrow(config.leakDetectionThresholdMillis() > 0);
+            active.add(pooled);
+            recordWait(waited);
+            handedOut.increment();
+            return pooled.handle;
+        }
+    }
+
+    public Metrics getMetrics() {
+        lock.lock();
+        try {
+            long count = handedOut.sum();
+            double averageWait = count == 0 ? 0 : waitNanos.sum() / 1e6 / count;
+            return new Metrics(active.size(), idle.size(), total, waiting,
+                    count, created.sum(), leaks.sum(), averageWait, maxWaitNanos.get() / 1e6);
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Closes the idle connections and stops handing out new ones. Connections still in use
+     * are closed when they're returned.
+     */
+    @Override
+    public void close() {
+        housekeeper.shutdownNow();
+        lock.lock();
+        try {
+            closed = true;
+            for (PooledConnection pooled : idle) {
+                closeQuietly(pooled.raw);
+                total--;
+            }
+            idle.clear();
+            available.signalAll();
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    // ----- Internals -----
+
+    private PooledConnection open() throws SQLException {
+        try {
+            Connection raw = DriverManager.getConnection(config.url(), config.username(), config.password());
+            created.increment();
+            return new PooledConnection(raw);
+        } catch (SQLException e) {
+            lock.lock();
+            try {
+                total--;
+                available.signal();
+            } finally {
+                lock.unlock();
+            }
+            throw e;
+        }
+    }
+
+    private boolean isUsable(PooledConnection pooled) {
+        long now = System.currentTimeMillis();
+        if (config.maxLifetimeMillis() > 0 && now - pooled.createdAt > config.maxLifetimeMillis()) {
+            return false;
+        }
+        if (now - pooled.lastUsed < config.validationIntervalMillis()) {
+            return true; // used a moment ago, skip the round trip
+        }
+        try {
+            return pooled.raw.isValid(config.validationTimeoutSeconds());
+        } catch (SQLException e) {
+            return false;
+        }
+    }
+
+    private void release(PooledConnection pooled) {
+        if (!active.remove(pooled)) {
+            return;
+        }
+        pooled.lastUsed = System.currentTimeMillis();
+        pooled.borrowedBy = null;
+
+        boolean reusable;
+        try {
+            reusable = !pooled.raw.isClosed();
+            if (reusable && !pooled.raw.getAutoCommit()) {
+                pooled.raw.rollback(); // don't let half a transaction leak to the next caller
+                pooled.raw.setAutoCommit(true);
+            }
+        } catch (SQLException e) {
+            reusable = false;
+        }
+
+        lock.lock();
+        try {
+            if (reusable && !closed) {
+                pooled.handle = pooled.newHandle();
+                idle.addLast(pooled);
+                available.signal();
+                return;
+            }
+        } finally {
+            lock.unlock();
+        }
+        discard(pooled);
+    }
+
+    private void discard(PooledConnection pooled) {
+        closeQuietly(pooled.raw);
+        lock.lock();
+        try {
+            total--;
+            available.signal();
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    private void housekeeping() {
+        long threshold = config.leakDetectionThresholdMillis();
+        if (threshold > 0) {
+            long now = System.currentTimeMillis();
+            for (PooledConnection pooled : active) {
+                Throwable borrowedBy = pooled.borrowedBy;
+                if (!pooled.leakReported && borrowedBy != null && now - pooled.borrowedAt > threshold) {
+                    pooled.leakReported = true;
+                    leaks.increment();
+                    LOG.warn("Possible connection leak: connection held for {}ms, borrowed at:",
+                            now - pooled.borrowedAt, borrowedBy);
+                }
+            }
+        }
+
+        // Keep minSize connections open so a burst doesn't start with handshakes
+        while (true) {
+            lock.lock();
+            try {
+                if (closed || total >= config.minSize()) {
+                    return;
+                }
+                total++;
+            } finally {
+                lock.unlock();
+            }
+            try {
+                PooledConnection pooled = open();
+                lock.lock();
+                try {
+                    idle.addFirst(pooled);
+                    available.signal();
+                } finally {
+                    lock.unlock();
+                }
+            } catch (SQLException e) {
+                return; // database is down, try again next round
+            }
+        }
+    }
+
+    private void recordWait(long nanos) {
+        waitNanos.add(nanos);
+        maxWaitNanos.accumulateAndGet(nanos, Math::max);
+    }
+
+    private static void closeQuietly(Connection connection) {
+        try {
+            connection.close();
+        } catch (SQLException ignored) {
+        }
+    }
+
+    private final class PooledConnection {
+        private final Connection raw;
+        private final long createdAt = System.currentTimeMillis();
+        private Connection handle;
+        private volatile long lastUsed = createdAt;
+        private volatile long borrowedAt;
+        private volatile Throwable borrowedBy;
+        private volatile boolean leakReported;
+
+        PooledConnection(Connection raw) {
+            this.raw = raw;
+            this.handle = newHandle();
+        }
+
+        Connection newHandle() {
+            return new PooledConnectionHandle(raw, () -> release(this));
+        }
+
+        void borrow(boolean trackLeaks) {
+            borrowedAt = System.currentTimeMillis();
+            borrowedBy = trackLeaks ? new Throwable("connection borrowed here") : null;
+            leakReported = false;
+        }
+    }
+}
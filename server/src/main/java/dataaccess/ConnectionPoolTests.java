@@ -0,0 +1,142 @@
+package dataaccess;
+
+import org.junit.jupiter.api.*;
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.sql.Connection;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.SQLTimeoutException;
+import java.sql.Statement;
+
+// Runs against an in-memory H2 database, so it needs H2 (a test dependency) but not MySQL
+public class ConnectionPoolTests {
+    private static int databases;
+
+    private ConnectionPool pool;
+
+    @AfterEach
+    public void tearDown() {
+        if (pool != null) {
+            pool.close();
+        }
+    }
+
+    private ConnectionPool newPool(int maxSize, long timeoutMillis, long validationIntervalMillis,
+                                   long maxLifetimeMillis, long leakThresholdMillis) {
+        String url = "jdbc:h2:mem:pool" + databases++ + ";DB_CLOSE_DELAY=-1";
+        pool = new ConnectionPool(new ConnectionPool.Config(url, "sa", "", 0, maxSize, timeoutMillis,
+                validationIntervalMillis, 1, maxLifetimeMillis, leakThresholdMillis));
+        return pool;
+    }
+
+    @Test
+    public void waitsForAFreeConnectionThenTimesOut() throws Exception {
+        newPool(2, 200, 500, 0, 0);
+        Connection first = pool.getConnection();
+        Connection second = pool.getConnection();
+
+        long start = System.nanoTime();
+        assertThrows(SQLTimeoutException.class, () -> pool.getConnection());
+        assertTrue(System.nanoTime() - start >= 150_000_000L, "gave up before the timeout");
+        assertEquals(2, pool.getMetrics().total());
+
+        first.close();
+        try (Connection third = pool.getConnection()) {
+            assertFalse(third.isClosed());
+        }
+        second.close();
+        assertEquals(2, pool.getMetrics().connectionsCreated()); // the third reused the first
+    }
+
+    @Test
+    public void staleConnectionIsReplaced() throws Exception {
+        newPool(1, 1_000, 0, 0, 0); // validate every time it's handed out
+        Connection raw;
+        try (Connection conn = pool.getConnection()) {
+            raw = conn.unwrap(Connection.class);
+        }
+        raw.close(); // dies while idle, as if the server dropped it
+
+        try (Connection conn = pool.getConnection(); Statement stmt = conn.createStatement()) {
+            assertNotSame(raw, conn.unwrap(Connection.class));
+            assertTrue(stmt.execute("SELECT 1"));
+        }
+        assertEquals(2, pool.getMetrics().connectionsCreated());
+        assertEquals(1, pool.getMetrics().total());
+    }
+
+    @Test
+    public void oldConnectionIsReplaced() throws Exception {
+        newPool(1, 1_000, 60_000, 50, 0);
+        Connection raw;
+        try (Connection conn = pool.getConnection()) {
+            raw = conn.unwrap(Connection.class);
+        }
+        Thread.sleep(100);
+
+        try (Connection conn = pool.getConnection()) {
+            assertNotSame(raw, conn.unwrap(Connection.class));
+        }
+        assertTrue(raw.isClosed());
+        assertEquals(2, pool.getMetrics().connectionsCreated());
+    }
+
+    @Test
+    public void heldConnectionIsReportedAsALeak() throws Exception {
+        newPool(1, 1_000, 500, 0, 100);
+        try (Connection ignored = pool.getConnection()) {
+            // The housekeeper looks once a second
+            long deadline = System.currentTimeMillis() + 5_000;
+            while (pool.getMetrics().leaksDetected() == 0 && System.currentTimeMillis() < deadline) {
+                Thread.sleep(50);
+            }
+            assertEquals(1, pool.getMetrics().leaksDetected());
+        }
+        try (Connection ignored = pool.getConnection()) {
+            assertEquals(1, pool.getMetrics().leaksDetected()); // quick borrows aren't leaks
+        }
+    }
+
+    @Test
+    public void returnedConnectionIsRolledBackAndReset() throws Exception {
+        newPool(1, 1_000, 500, 0, 0);
+        try (Connection conn = pool.getConnection(); Statement stmt = conn.createStatement()) {
+            stmt.executeUpdate("CREATE TABLE t (id INT)");
+        }
+
+        Connection abandoned = pool.getConnection();
+        abandoned.setAutoCommit(false);
+        try (Statement stmt = abandoned.createStatement()) {
+            stmt.executeUpdate("INSERT INTO t VALUES (1)");
+        }
+        abandoned.close(); // without committing
+
+        try (Connection conn = pool.getConnection();
+             Statement stmt = conn.createStatement();
+             ResultSet rs = stmt.executeQuery("SELECT COUNT(*) FROM t")) {
+            assertTrue(conn.getAutoCommit());
+            rs.next();
+            assertEquals(0, rs.getInt(1));
+        }
+        assertThrows(SQLException.class, abandoned::createStatement); // that handle is dead
+        assertEquals(1, pool.getMetrics().connectionsCreated());
+    }
+
+    @Test
+    public void connectionClosedThroughAStatementIsReplaced() throws Exception {
+        newPool(1, 200, 500, 0, 0);
+        Connection conn = pool.getConnection();
+        try (Statement stmt = conn.createStatement()) {
+            stmt.getConnection().close(); // the real one, so it's gone for good
+        }
+        assertTrue(conn.isClosed());
+        conn.close(); // the pool sees it's dead and makes room for a new one
+        assertEquals(0, pool.getMetrics().total());
+
+        try (Connection again = pool.getConnection(); Statement stmt = again.createStatement()) {
+            assertTrue(stmt.execute("SELECT 1"));
+        }
+        assertEquals(2, pool.getMetrics().connectionsCreated());
+    }
+}
@@ -1,17 +1,23 @@
 package dataaccess;
 
+import chess.ChessMove;
 import model.AuthData;
 import model.GameData;
+import model.GameSummary;
 import model.UserData;
 
 import java.util.Collection;
+import java.util.List;
 
 public interface DataAccess {
 
     // ---- Users ----
+    // Stores user.password() as given, so it should already be hashed
     void createUser(UserData user) throws DataAccessException;
     UserData getUser(String username) throws DataAccessException;
     Collection<UserData> getAllUsers() throws DataAccessException;
+    // Swaps in a new hash for the same password, e.g. at a different cost. Does nothing for an unknown user
+    void updatePassword(String username, String hashedPassword) throws DataAccessException;
 
     // ---- Auth ----
     AuthData createAuth(AuthData auth) throws DataAccessException;
@@ -23,7 +29,29 @@ public interface DataAccess {
     GameData getGame(int gameID) throws DataAccessException;
     GameData getGameByName(String gameName) throws DataAccessException;
     Collection<GameData> listGames() throws DataAccessException;
+    // One page of summaries matching the query, in game id order. Everything listGames has
+    // except the board, so listings don't pay to load game state
+    List<GameSummary> listGameSummaries(GameQuery query) throws DataAccessException;
+    // Every game's summary, for tests and benchmarks; the server only ever lists a page
+    default Collection<GameSummary> listGameSummaries() throws DataAccessException {
+        return listGameSummaries(new GameQuery(0, Integer.MAX_VALUE, false, null, null));
+    }
+    // Never takes a game back to fewer moves (see ChessGame.getMovesPlayed): an update from an
+    // older read changes the players and name but keeps the stored board
     void updateGame(GameData game) throws DataAccessException;
+    // Several updates at once, which a database can do in one round trip
+    default void updateGames(Collection<GameData> games) throws DataAccessException {
+        for (GameData game : games) {
+            updateGame(game);
+        }
+    }
+    // game is the state after move was played, and only its board changed. Storage that can
+    // save just the move instead of the whole game overrides this, as does storage shared
+    // between threads, which throws GameChangedException if the stored game isn't the one the
+    // move was played on (it's had a move since), so two moves made on one read can't both land
+    default void recordMove(GameData game, ChessMove move) throws DataAccessException {
+        updateGame(game);
+    }
 
     // ---- Utils ----
     void clear() throws DataAccessException;
@@ -3,11 +3,29 @@ package dataaccess;
 import java.sql.*;
 import java.util.Properties;
 
+/**
+ * Reads db.properties and hands out pooled connections to the chess database.
+ * <p>
+ * Besides db.host, db.port, db.name, db.user and db.password (or a full db.url),
+ * the pool can be tuned with these optional properties:
+ * <pre>
+ *   db.pool.minSize                  connections kept open while idle (default 2)
+ *   db.pool.maxSize                  most connections open at once (default 10)
+ *   db.pool.connectionTimeoutMs      how long getConnection waits for a free one (default 30000)
+ *   db.pool.validationIntervalMs     idle time after which a connection is re-checked (default 500)
+ *   db.pool.validationTimeoutSec     how long that check may take (default 2)
+ *   db.pool.maxLifetimeMs            connections older than this are replaced (default 1800000)
+ *   db.pool.leakDetectionThresholdMs report connections held longer than this, 0 for off (default 0)
+ * </pre>
+ */
 public class DatabaseManager {
     private static String databaseName;
     private static String dbUsername;
     private static String dbPassword;
     private static String connectionUrl;
+    private static ConnectionPool.Config poolConfig;
+    // Read without a lock on every getConnection, so volatile; only set while holding the class lock
+    private static volatile ConnectionPool pool;
 
     static {
         loadPropertiesFromResources();
@@ -23,21 +41,80 @@ public class DatabaseManager {
         }
     }
 
+    /**
+     * Gets a connection from the pool. Closing it returns it to the pool,
+     * so keep using try-with-resources like before.
+     */
     public static Connection getConnection() throws DataAccessException {
         try {
-            return DriverManager.getConnection(connectionUrl, dbUsername, dbPassword);
+            return pool().getConnection();
         } catch (SQLException ex) {
             throw new DataAccessException("failed to get connection", ex);
         }
     }
 
-    public static void loadProperties(Properties props) {
+    public static ConnectionPool.Metrics getPoolMetrics() {
+        return pool().getMetrics();
+    }
+
+    /**
+     * Closes the pool's connections. The next getConnection starts a new pool.
+     */
+    public static synchronized void closePool() {
+        if (pool != null) {
+            pool.close();
+            pool = null;
+        }
+    }
+
+    // Made on first use so the database exists (see createDatabase) before connections open.
+    // Only the first caller (or the first after closePool) takes the lock.
+    private static ConnectionPool pool() {
+        ConnectionPool current = pool;
+        if (current != null) {
+            return current;
+        }
+        synchronized (DatabaseManager.class) {
+            if (pool == null) {
+                pool = new ConnectionPool(poolConfig);
+            }
+            return pool;
+        }
+    }
+
+    public static synchronized void loadProperties(Properties props) {
         databaseName = props.getProperty("db.name");
         dbUsername = props.getProperty("db.user");
         dbPassword = props.getProperty("db.password");
-        String host = props.getProperty("db.host");
-        int port = Integer.parseInt(props.getProperty("db.port"));
-        connectionUrl = String.format("jdbc:mysql://%s:%d/%s", host, port, databaseName);
+        // A full JDBC URL (e.g. an embedded database for benchmarks) wins over host/port
+        String url = props.getProperty("db.url");
+        if (url != null && !url.isBlank()) {
+            connectionUrl = url;
+        } else {
+            String host = props.getProperty("db.host");
+            int port = Integer.parseInt(props.getProperty("db.port"));
+            connectionUrl = String.format("jdbc:mysql://%s:%d/%s", host, port, databaseName);
+        }
+
+        poolConfig = new ConnectionPool.Config(connectionUrl, dbUsername, dbPassword,
+                intProperty(props, "db.pool.minSize", 2),
+                intProperty(props, "db.pool.maxSize", 10),
+                longProperty(props, "db.pool.connectionTimeoutMs", 30_000),
+                longProperty(props, "db.pool.validationIntervalMs", 500),
+                intProperty(props, "db.pool.validationTimeoutSec", 2),
+                longProperty(props, "db.pool.maxLifetimeMs", 1_800_000),
+                longProperty(props, "db.pool.leakDetectionThresholdMs", 0));
+        closePool(); // settings changed, start over with the new ones
+    }
+
+    private static int intProperty(Properties props, String name, int defaultValue) {
+        String value = props.getProperty(name);
+        return value == null || value.isBlank() ? defaultValue : Integer.parseInt(value.trim());
+    }
+
+    private static long longProperty(Properties props, String name, long defaultValue) {
+        String value = props.getProperty(name);
+        return value == null || value.isBlank() ? defaultValue : Long.parseLong(value.trim());
     }
 
     public static void loadPropertiesFromResources() {
@@ -0,0 +1,106 @@
+package dataaccess;
+
+import chess.ChessMove;
+import model.AuthData;
+import model.GameData;
+import model.GameSummary;
+import model.UserData;
+
+import java.util.Collection;
+import java.util.List;
+
+/**
+ * A DataAccess that passes every call on to another one. Decorators extend it and override
+ * only the calls they change.
+ */
+public abstract class ForwardingDataAccess implements DataAccess {
+    protected final DataAccess delegate;
+
+    protected ForwardingDataAccess(DataAccess delegate) {
+        this.delegate = delegate;
+    }
+
+    // ---- Users ----
+    @Override
+    public void createUser(UserData user) throws DataAccessException {
+        delegate.createUser(user);
+    }
+
+    @Override
+    public UserData getUser(String username) throws DataAccessException {
+        return delegate.getUser(username);
+    }
+
+    @Override
+    public Collection<UserData> getAllUsers() throws DataAccessException {
+        return delegate.getAllUsers();
+    }
+
+    @Override
+    public void updatePassword(String username, String hashedPassword) throws DataAccessException {
+        delegate.updatePassword(username, hashedPassword);
+    }
+
+    // ---- Auth ----
+    @Override
+    public AuthData createAuth(AuthData auth) throws DataAccessException {
+        return delegate.createAuth(auth);
+    }
+
+    @Override
+    public AuthData getAuth(String authToken) throws DataAccessException {
+        return delegate.getAuth(authToken);
+    }
+
+    @Override
+    public void deleteAuth(String authToken) throws DataAccessException {
+        delegate.deleteAuth(authToken);
+    }
+
+    // ---- Games ----
+    @Override
+    public GameData createGame(GameData game) throws DataAccessException {
+        return delegate.createGame(game);
+    }
+
+    @Override
+    public GameData getGame(int gameID) throws DataAccessException {
+        return delegate.getGame(gameID);
+    }
+
+    @Override
+    public GameData getGameByName(String gameName) throws DataAccessException {
+        return delegate.getGameByName(gameName);
+    }
+
+    @Override
+    public Collection<GameData> listGames() throws DataAccessException {
+        return delegate.listGames();
+    }
+
+    @Override
+    public List<GameSummary> listGameSummaries(GameQuery query) throws DataAccessException {
+        return delegate.listGameSummaries(query);
+    }
+
+    @Override
+    public void updateGame(GameData game) throws DataAccessException {
+        delegate.updateGame(game);
+    }
+
+    @Override
+    public void updateGames(Collection<GameData> games) throws DataAccessException {
+        delegate.updateGames(games);
+    }
+
+    @Override
+    public void recordMove(GameData game, ChessMove move) throws DataAccessException {
+        delegate.recordMove(game, move);
+    }
+
+    // ---- Utils ----
+    @Override
+    public void clear() throws DataAccessException {
+        delegate.clear();
+    }
+}
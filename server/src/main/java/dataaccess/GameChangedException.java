@@ -0,0 +1,11 @@
+package dataaccess;
+
+/**
+ * The stored game has had a move since the copy being saved was read, so saving it would
+ * play a second move from the same position
+ */
+public class GameChangedException extends DataAccessException {
+    public GameChangedException(String message) {
+        super(message);
+    }
+}
@@ -1,17 +1,24 @@
 package dataaccess;
 
 import model.GameData;
+import model.GameSummary;
 import model.UserData;
 import org.junit.jupiter.api.*;
 import static org.junit.jupiter.api.Assertions.*;
 import java.util.Collection;
+import java.util.List;
 
 public class GameDAOTests {
-    private SQLDataAccess database;
+    private DataAccess database;
+
+    // Other DataAccess implementations run these same tests by overriding this
+    protected DataAccess newDataAccess() throws DataAccessException {
+        return new SQLDataAccess();
+    }
 
     @BeforeEach
     public void setup() throws DataAccessException {
-        database = new SQLDataAccess();
+        database = newDataAccess();
         database.clear();
         database.createUser(new UserData("white", "pw", "w@e.com"));
         database.createUser(new UserData("black", "pw", "b@e.com"));
@@ -66,10 +73,150 @@ public class GameDAOTests {
         assertTrue(games.isEmpty());
     }
 
+    @Test
+    public void listGameSummariesMatchesGames() throws DataAccessException {
+        GameData created = database.createGame(new GameData(0, "white", null, "Game1", new chess.ChessGame()));
+        Collection<GameSummary> summaries = database.listGameSummaries();
+        assertEquals(1, summaries.size());
+        assertEquals(new GameSummary(created.gameID(), "white", null, "Game1"), summaries.iterator().next());
+    }
+
+    @Test
+    public void listGameSummariesPagesWithFilters() throws DataAccessException {
+        GameData full = database.createGame(new GameData(0, "white", "black", "Full_Game", new chess.ChessGame()));
+        GameData open = database.createGame(new GameData(0, "white", null, "Open Game", new chess.ChessGame()));
+        GameData other = database.createGame(new GameData(0, null, "black", "FullHouse", new chess.ChessGame()));
+
+        List<GameSummary> openSeats = database.listGameSummaries(new GameQuery(0, 10, true, null, null));
+        assertEquals(List.of(open.gameID(), other.gameID()), openSeats.stream().map(GameSummary::gameID).toList());
+
+        List<GameSummary> whites = database.listGameSummaries(new GameQuery(full.gameID(), 10, false, "white", null));
+        assertEquals(List.of(open.gameID()), whites.stream().map(GameSummary::gameID).toList());
+
+        // '_' is a LIKE wildcard, so it has to be escaped to only match the literal name
+        List<GameSummary> named = database.listGameSummaries(new GameQuery(0, 1, false, null, "Full_"));
+        assertEquals(List.of(full.gameID()), named.stream().map(GameSummary::gameID).toList());
+    }
+
     @Test
     public void clearRemovesAllGames() throws DataAccessException {
         database.createGame(new GameData(0, "white", "black", "Game1", new chess.ChessGame()));
         database.clear();
         assertTrue(database.listGames().isEmpty());
     }
+
+    @Test
+    public void recordedMovesSurviveReload() throws Exception {
+        chess.ChessGame game = new chess.ChessGame();
+        GameData created = database.createGame(new GameData(0, "white", "black", "Moves", game));
+        // Knights out and back, long enough to cross a few snapshots
+        int[][] shuffle = {{1, 7, 3, 6}, {8, 7, 6, 6}, {3, 6, 1, 7}, {6, 6, 8, 7}};
+        for (int i = 0; i < 100; i++) {
+            int[] m = shuffle[i % shuffle.length];
+            var move = new chess.ChessMove(new chess.ChessPosition(m[0], m[1]), new chess.ChessPosition(m[2], m[3]), null);
+            game.makeMove(move);
+            database.recordMove(created, move);
+
+            GameData loaded = database.getGame(created.gameID());
+            assertEquals(game, loaded.game(), "after move " + (i + 1));
+            assertEquals("white", loaded.whiteUsername());
+        }
+        assertEquals(game, database.listGames().iterator().next().game());
+        assertEquals(game, database.getGameByName("Moves").game());
+
+        // A full update takes over from whatever was journaled
+        database.updateGame(new GameData(created.gameID(), "black", "white", "Moves", game));
+        GameData updated = database.getGame(created.gameID());
+        assertEquals(game, updated.game());
+        assertEquals(100, updated.game().getMovesPlayed());
+        assertEquals("black", updated.whiteUsername());
+    }
+
+    @Test
+    public void ofMovesMadeOnOneReadOnlyTheFirstLands() throws Exception {
+        GameData created = database.createGame(new GameData(0, "white", "black", "Race", new chess.ChessGame()));
+        // Eight requests all read the game, then each tries a different first move for white
+        List<GameData> reads = new java.util.ArrayList<>();
+        for (int col = 1; col <= 8; col++) {
+            reads.add(database.getGame(created.gameID()));
+        }
+        var pool = java.util.concurrent.Executors.newFixedThreadPool(8);
+        int landed = 0;
+        try {
+            List<java.util.concurrent.Future<Boolean>> results = new java.util.ArrayList<>();
+            for (int col = 1; col <= 8; col++) {
+                GameData read = reads.get(col - 1);
+                var move = new chess.ChessMove(new chess.ChessPosition(2, col), new chess.ChessPosition(3, col), null);
+                results.add(pool.submit(() -> {
+                    read.game().makeMove(move);
+                    try {
+                        database.recordMove(read, move);
+                        return true;
+                    } catch (GameChangedException e) {
+                        return false;
+                    }
+                }));
+            }
+            for (var result : results) {
+                landed += result.get() ? 1 : 0;
+            }
+        } finally {
+            pool.shutdown();
+        }
+
+        assertEquals(1, landed);
+        chess.ChessGame stored = database.getGame(created.gameID()).game();
+        assertEquals(1, stored.getMovesPlayed());
+        assertEquals(chess.ChessGame.TeamColor.BLACK, stored.getTeamTurn());
+        int pushed = 0;
+        for (int col = 1; col <= 8; col++) {
+            pushed += stored.getBoard().getPiece(new chess.ChessPosition(3, col)) != null ? 1 : 0;
+        }
+        assertEquals(1, pushed);
+    }
+
+    @Test
+    public void updateFromAnOlderReadKeepsLaterMoves() throws Exception {
+        GameData created = database.createGame(new GameData(0, null, null, "Join", new chess.ChessGame()));
+        chess.ChessGame game = database.getGame(created.gameID()).game();
+        int[][] shuffle = {{1, 7, 3, 6}, {8, 7, 6, 6}, {3, 6, 1, 7}, {6, 6, 8, 7}};
+        GameData earlyRead = null;
+        GameData lateRead = null;
+        for (int i = 0; i < 40; i++) { // past a snapshot, for SQL
+            if (i == 5) {
+                earlyRead = database.getGame(created.gameID());
+            } else if (i == 35) {
+                lateRead = database.getGame(created.gameID());
+            }
+            int[] m = shuffle[i % shuffle.length];
+            var move = new chess.ChessMove(new chess.ChessPosition(m[0], m[1]), new chess.ChessPosition(m[2], m[3]), null);
+            game.makeMove(move);
+            database.recordMove(new GameData(created.gameID(), null, null, "Join", game), move);
+        }
+
+        // Joins that read the game a while back land only now
+        database.updateGame(new GameData(created.gameID(), "white", null, "Join", lateRead.game()));
+        database.updateGame(new GameData(created.gameID(), "white", "black", "Join", earlyRead.game()));
+
+        GameData loaded = database.getGame(created.gameID());
+        assertEquals(game, loaded.game());
+        assertEquals(40, loaded.game().getMovesPlayed());
+        assertEquals("white", loaded.whiteUsername());
+        assertEquals("black", loaded.blackUsername());
+
+        // and play goes on from where it was
+        var next = new chess.ChessMove(new chess.ChessPosition(1, 7), new chess.ChessPosition(3, 6), null);
+        game.makeMove(next);
+        database.recordMove(new GameData(created.gameID(), "white", "black", "Join", game), next);
+        assertEquals(game, database.getGame(created.gameID()).game());
+    }
+
+    @Test
+    public void recordMoveForMissingGameDoesNothing() throws Exception {
+        chess.ChessGame game = new chess.ChessGame();
+        var move = new chess.ChessMove(new chess.ChessPosition(2, 5), new chess.ChessPosition(4, 5), null);
+        game.makeMove(move);
+        database.recordMove(new GameData(12345, null, null, "Nope", game), move);
+        assertNull(database.getGame(12345));
+    }
 }
@@ -0,0 +1,32 @@
+package dataaccess;
+
+/**
+ * One page of a game listing: games with an id greater than afterGameID, oldest first,
+ * at most limit of them. Paging by id instead of by offset means every page is an index
+ * seek no matter how deep into the list it is.
+ *
+ * @param afterGameID the last id from the previous page, or 0 for the first page
+ * @param openSeat    only games with an empty white or black seat
+ * @param player      only games this user is playing in, or null for anyone
+ * @param namePrefix  only games whose name starts with this, or null for any name
+ */
+public record GameQuery(int afterGameID, int limit, boolean openSeat, String player, String namePrefix) {
+    public GameQuery {
+        if (afterGameID < 0 || limit < 1) {
+            throw new IllegalArgumentException("afterGameID must be >= 0 and limit >= 1");
+        }
+    }
+
+    public boolean matches(int gameID, String whiteUsername, String blackUsername, String gameName) {
+        if (gameID <= afterGameID) {
+            return false;
+        }
+        if (openSeat && whiteUsername != null && blackUsername != null) {
+            return false;
+        }
+        if (player != null && !player.equals(whiteUsername) && !player.equals(blackUsername)) {
+            return false;
+        }
+        return namePrefix == null || (gameName != null && gameName.startsWith(namePrefix));
+    }
+}
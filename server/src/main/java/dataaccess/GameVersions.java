@@ -0,0 +1,41 @@
+package dataaccess;
+
+import chess.ChessGame;
+import model.GameData;
+
+/**
+ * A game's move count is its version. These are the two rules every DataAccess follows with
+ * it, so that moves made at the same time, or a write from an older read, don't lose moves.
+ */
+final class GameVersions {
+    private GameVersions() {
+    }
+
+    static int movesPlayed(ChessGame game) {
+        return game == null ? 0 : game.getMovesPlayed();
+    }
+
+    /**
+     * For recordMove: game has to be the stored game plus one move
+     *
+     * @throws GameChangedException if the stored game has had a move since game was read
+     */
+    static void checkNextMove(int storedMoves, GameData game) throws GameChangedException {
+        if (game.game() != null && storedMoves != game.game().getMovesPlayed() - 1) {
+            throw new GameChangedException("Game " + game.gameID() + " has had " + storedMoves
+                    + " moves, not " + (game.game().getMovesPlayed() - 1));
+        }
+    }
+
+    /**
+     * For updateGame: the update's players and name, but the stored board if it's had more
+     * moves, so a write from an older read (a join, say) can't take back moves made since
+     */
+    static GameData keepNewerBoard(GameData update, ChessGame stored) {
+        if (movesPlayed(stored) <= movesPlayed(update.game())) {
+            return update;
+        }
+        return new GameData(update.gameID(), update.whiteUsername(), update.blackUsername(),
+                update.gameName(), stored);
+    }
+}
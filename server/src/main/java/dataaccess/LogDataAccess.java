@@ -0,0 +1,611 @@
+package dataaccess;
+
+import chess.ChessGame;
+import chess.ChessMove;
+import chess.GameCodec;
+import model.AuthData;
+import model.GameData;
+import model.GameSummary;
+import model.UserData;
+
+import java.io.ByteArrayOutputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.zip.CRC32;
+
+/**
+ * A DataAccess that keeps everything in one local file, for running without a MySQL server.
+ * <p>
+ * The file is an append-only log of changes, written through a memory mapping:
+ * <pre>
+ *   header   8 bytes, "CHESSLOG" magic
+ *   record   int payload length, int CRC32 of the payload, then the payload:
+ *            byte type, then the fields for that type (see the TYPE_ constants)
+ *   ...      a 0 length marks the end
+ * </pre>
+ * On startup the log is replayed to rebuild the in-memory index: users and auth tokens as
+ * objects, games as the file offset of their latest record (sorted by id for paging), so a
+ * board is only decoded when someone asks for it. Replay stops at the first record whose
+ * length or checksum doesn't add up, which is where a crash cut off the last write.
+ * <p>
+ * Every change appends a record, so old versions of games and deleted tokens pile up.
+ * Once the log holds more than twice as many records as there are live things (and at least
+ * a few thousand), it's compacted: the live state is written to a new file, which then
+ * replaces the old one with an atomic rename. clear() is a compaction down to nothing.
+ * <p>
+ * Writes go to the OS page cache straight away and reach the disk when the OS flushes them,
+ * on {@link #sync()}, or on {@link #close()}; pass forceEachWrite to sync after every change
+ * instead. Reads share a lock and writes take it exclusively.
+ */
+public class LogDataAccess implements DataAccess, AutoCloseable {
+    private static final byte[] MAGIC = "CHESSLOG".getBytes(StandardCharsets.US_ASCII);
+    private static final int RECORD_HEADER_BYTES = 8;
+    private static final int INITIAL_MAP_BYTES = 1 << 20;
+    private static final int MIN_RECORDS_TO_COMPACT = 4096;
+    private static final int NULL_LENGTH = 0xFFFF;
+
+    // username, password hash, email
+    private static final byte TYPE_USER = 1;
+    // token, username
+    private static final byte TYPE_AUTH = 2;
+    // token
+    private static final byte TYPE_AUTH_DELETE = 3;
+    // int id, white, black, name, game state (GameCodec bytes with a 2-byte length)
+    private static final byte TYPE_GAME = 4;
+
+    private final Path file;
+    private final boolean forceEachWrite;
+    private final ReentrantReadWriteLock lock = new ReentrantReadWriteLock();
+
+    private FileChannel channel;
+    private MappedByteBuffer log;
+    private int end; // where the next record goes
+
+    private final Map<String, UserData> users = new HashMap<>();
+    private final Map<String, AuthData> authTokens = new HashMap<>();
+    private final TreeMap<Integer, Integer> gameOffsets = new TreeMap<>();
+    private int nextGameID = 1;
+    private int records;
+
+    public LogDataAccess(Path file) throws DataAccessException {
+        this(file, false);
+    }
+
+    /**
+     * @param forceEachWrite sync the file to disk after every change, trading speed for not
+     *                       losing the last moment's writes if the machine goes down
+     */
+    public LogDataAccess(Path file, boolean forceEachWrite) throws DataAccessException {
+        this.file = file;
+        this.forceEachWrite = forceEachWrite;
+        try {
+            boolean existing = Files.exists(file) && Files.size(file) > 0;
+            channel = FileChannel.open(file, StandardOpenOption.CREATE, StandardOpenOption.READ, StandardOpenOption.WRITE);
+            log = channel.map(FileChannel.MapMode.READ_WRITE, 0, Math.max(INITIAL_MAP_BYTES, channel.size()));
+            if (existing) {
+                replay();
+            } else {
+                log.put(0, MAGIC);
+                end = MAGIC.length;
+            }
+        } catch (IOException e) {
+            throw new DataAccessException("Unable to open " + file, e);
+        }
+    }
+
+    // ---- Users ----
+    @Override
+    public void createUser(UserData user) throws DataAccessException {
+        if (user.username() == null || user.password() == null) {
+            throw new DataAccessException("Unable to create user: missing username or password");
+        }
+        lock.writeLock().lock();
+        try {
+            if (users.containsKey(user.username())) {
+                throw new DataAccessException("Unable to create user: " + user.username() + " already exists");
+            }
+            append(encode(TYPE_USER, out -> {
+                writeString(out, user.username());
+                writeString(out, user.password());
+                writeString(out, user.email());
+            }));
+            users.put(user.username(), user);
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    @Override
+    public UserData getUser(String username) {
+        lock.readLock().lock();
+        try {
+            return users.get(username);
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    @Override
+    public Collection<UserData> getAllUsers() {
+        lock.readLock().lock();
+        try {
+            return List.copyOf(users.values());
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    @Override
+    public void updatePassword(String username, String hashedPassword) throws DataAccessException {
+        lock.writeLock().lock();
+        try {
+            UserData user = users.get(username);
+            if (user != null) {
+                // Replay keeps the last record for a username, so this just supersedes the old one
+                UserData updated = new UserData(username, hashedPassword, user.email());
+                append(encode(TYPE_USER, out -> {
+                    writeString(out, updated.username());
+                    writeString(out, updated.password());
+                    writeString(out, updated.email());
+                }));
+                users.put(username, updated);
+                compactIfMostlyGarbage();
+            }
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    // ---- Auth ----
+    @Override
+    public AuthData createAuth(AuthData auth) throws DataAccessException {
+        if (auth.authToken() == null) {
+            throw new DataAccessException("Unable to create auth token: missing token");
+        }
+        lock.writeLock().lock();
+        try {
+            if (authTokens.containsKey(auth.authToken())) {
+                throw new DataAccessException("Unable to create auth token: token already exists");
+            }
+            append(encode(TYPE_AUTH, out -> {
+                writeString(out, auth.authToken());
+                writeString(out, auth.username());
+            }));
+            authTokens.put(auth.authToken(), auth);
+            return auth;
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    @Override
+    public AuthData getAuth(String authToken) {
+        lock.readLock().lock();
+        try {
+            return authTokens.get(authToken);
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    @Override
+    public void deleteAuth(String authToken) throws DataAccessException {
+        lock.writeLock().lock();
+        try {
+            if (authTokens.containsKey(authToken)) {
+                append(encode(TYPE_AUTH_DELETE, out -> writeString(out, authToken)));
+                authTokens.remove(authToken);
+                compactIfMostlyGarbage();
+            }
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    // ---- Games ----
+    @Override
+    public GameData createGame(GameData game) throws DataAccessException {
+        if (game.gameName() == null) {
+            throw new DataAccessException("Unable to create game: missing name");
+        }
+        lock.writeLock().lock();
+        try {
+            GameData newGame = new GameData(nextGameID, game.whiteUsername(), game.blackUsername(),
+                    game.gameName(), game.game());
+            writeGame(newGame);
+            nextGameID++;
+            return newGame;
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    @Override
+    public GameData getGame(int gameID) {
+        lock.readLock().lock();
+        try {
+            Integer offset = gameOffsets.get(gameID);
+            return offset == null ? null : readGame(offset, true).game;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    @Override
+    public GameData getGameByName(String gameName) {
+        lock.readLock().lock();
+        try {
+            for (int offset : gameOffsets.values()) {
+                GameRecord record = readGame(offset, false);
+                if (record.summary.gameName().equalsIgnoreCase(gameName)) {
+                    return readGame(offset, true).game;
+                }
+            }
+            return null;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    @Override
+    public Collection<GameData> listGames() {
+        lock.readLock().lock();
+        try {
+            List<GameData> games = new ArrayList<>(gameOffsets.size());
+            for (int offset : gameOffsets.values()) {
+                games.add(readGame(offset, true).game);
+            }
+            return games;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    @Override
+    public List<GameSummary> listGameSummaries(GameQuery query) {
+        lock.readLock().lock();
+        try {
+            List<GameSummary> page = new ArrayList<>();
+            for (int offset : gameOffsets.tailMap(query.afterGameID(), false).values()) {
+                GameSummary g = readGame(offset, false).summary;
+                if (query.matches(g.gameID(), g.whiteUsername(), g.blackUsername(), g.gameName())) {
+                    page.add(g);
+                    if (page.size() == query.limit()) {
+                        break;
+                    }
+                }
+            }
+            return page;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    @Override
+    public void updateGame(GameData game) throws DataAccessException {
+        lock.writeLock().lock();
+        try {
+            Integer offset = gameOffsets.get(game.gameID());
+            if (offset != null) {
+                writeGame(GameVersions.keepNewerBoard(game, readGame(offset, true).game.game()));
+                compactIfMostlyGarbage();
+            }
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    // Checked and written under one write lock, so of two moves made on one read only the first lands
+    @Override
+    public void recordMove(GameData game, ChessMove move) throws DataAccessException {
+        lock.writeLock().lock();
+        try {
+            Integer offset = gameOffsets.get(game.gameID());
+            if (offset != null) {
+                GameVersions.checkNextMove(GameVersions.movesPlayed(readGame(offset, true).game.game()), game);
+                writeGame(game);
+                compactIfMostlyGarbage();
+            }
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    // ---- Utils ----
+    @Override
+    public void clear() throws DataAccessException {
+        lock.writeLock().lock();
+        try {
+            users.clear();
+            authTokens.clear();
+            gameOffsets.clear();
+            nextGameID = 1;
+            compact();
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * Writes the live state to a fresh file and swaps it in, dropping old game versions and
+     * logged-out tokens. Runs by itself as the log grows; this is for doing it on demand.
+     */
+    public void compact() throws DataAccessException {
+        lock.writeLock().lock();
+        try {
+            Path temp = file.resolveSibling(file.getFileName() + ".compact");
+            Map<Integer, Integer> newOffsets = new HashMap<>();
+            try (FileChannel out = FileChannel.open(temp, StandardOpenOption.CREATE,
+                    StandardOpenOption.TRUNCATE_EXISTING, StandardOpenOption.WRITE)) {
+                out.write(ByteBuffer.wrap(MAGIC));
+                for (UserData user : users.values()) {
+                    out.write(ByteBuffer.wrap(encode(TYPE_USER, o -> {
+                        writeString(o, user.username());
+                        writeString(o, user.password());
+                        writeString(o, user.email());
+                    })));
+                }
+                for (AuthData auth : authTokens.values()) {
+                    out.write(ByteBuffer.wrap(encode(TYPE_AUTH, o -> {
+                        writeString(o, auth.authToken());
+                        writeString(o, auth.username());
+                    })));
+                }
+                for (Map.Entry<Integer, Integer> entry : gameOffsets.entrySet()) {
+                    newOffsets.put(entry.getKey(), (int) out.position());
+                    out.write(copyRecord(entry.getValue())); // already encoded, no need to decode it
+                }
+                out.force(true);
+            }
+            Files.move(temp, file, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+
+            channel.close();
+            channel = FileChannel.open(file, StandardOpenOption.READ, StandardOpenOption.WRITE);
+            end = (int) channel.size();
+            log = channel.map(FileChannel.MapMode.READ_WRITE, 0, Math.max(INITIAL_MAP_BYTES, (long) end * 2));
+            gameOffsets.putAll(newOffsets);
+            records = users.size() + authTokens.size() + gameOffsets.size();
+        } catch (IOException e) {
+            throw new DataAccessException("Unable to compact " + file, e);
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * @return bytes of log written so far; the file itself is bigger, since it's mapped ahead of the writes
+     */
+    public int getLogBytes() {
+        lock.readLock().lock();
+        try {
+            return end;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * Makes sure everything written so far is on disk
+     */
+    public void sync() {
+        lock.writeLock().lock();
+        try {
+            log.force();
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    @Override
+    public void close() throws DataAccessException {
+        lock.writeLock().lock();
+        try {
+            log.force();
+            channel.close();
+        } catch (IOException e) {
+            throw new DataAccessException("Unable to close " + file, e);
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    // ----- Writing -----
+
+    private interface Fields {
+        void write(DataOutputStream out) throws IOException;
+    }
+
+    private static byte[] encode(byte type, Fields fields) throws DataAccessException {
+        try {
+            ByteArrayOutputStream bytes = new ByteArrayOutputStream(64);
+            DataOutputStream out = new DataOutputStream(bytes);
+            out.writeInt(0); // length and checksum, filled in below
+            out.writeInt(0);
+            out.writeByte(type);
+            fields.write(out);
+            out.flush();
+
+            ByteBuffer record = ByteBuffer.wrap(bytes.toByteArray());
+            int payloadLength = record.capacity() - RECORD_HEADER_BYTES;
+            CRC32 crc = new CRC32();
+            crc.update(record.array(), RECORD_HEADER_BYTES, payloadLength);
+            record.putInt(0, payloadLength).putInt(4, (int) crc.getValue());
+            return record.array();
+        } catch (IOException e) {
+            throw new DataAccessException("Unable to encode record", e);
+        }
+    }
+
+    private void writeGame(GameData game) throws DataAccessException {
+        byte[] state = game.game() == null ? null : GameCodec.encode(game.game());
+        int offset = append(encode(TYPE_GAME, out -> {
+            out.writeInt(game.gameID());
+            writeString(out, game.whiteUsername());
+            writeString(out, game.blackUsername());
+            writeString(out, game.gameName());
+            if (state == null) {
+                out.writeShort(NULL_LENGTH);
+            } else {
+                out.writeShort(state.length);
+                out.write(state);
+            }
+        }));
+        gameOffsets.put(game.gameID(), offset);
+    }
+
+    // Caller holds the write lock. Returns where the record went.
+    private int append(byte[] record) throws DataAccessException {
+        int needed = record.length + 4; // room for the 0 that marks the end
+        if (end + needed > log.capacity()) {
+            grow(end + needed);
+        }
+        int offset = end;
+        log.put(offset, record);
+        end += record.length;
+        log.putInt(end, 0);
+        if (forceEachWrite) {
+            log.force();
+        }
+
+        records++;
+        return offset;
+    }
+
+    // Caller holds the write lock and has already indexed the record it appended
+    private void compactIfMostlyGarbage() throws DataAccessException {
+        int live = users.size() + authTokens.size() + gameOffsets.size();
+        if (records > MIN_RECORDS_TO_COMPACT && records > 2 * live) {
+            compact();
+        }
+    }
+
+    private void grow(long minimum) throws DataAccessException {
+        try {
+            long size = Math.max((long) log.capacity() * 2, minimum);
+            if (size > Integer.MAX_VALUE) {
+                throw new DataAccessException("Log file " + file + " is full; compact it");
+            }
+            log.force();
+            log = channel.map(FileChannel.MapMode.READ_WRITE, 0, size);
+        } catch (IOException e) {
+            throw new DataAccessException("Unable to grow " + file, e);
+        }
+    }
+
+    private static void writeString(DataOutputStream out, String value) throws IOException {
+        if (value == null) {
+            out.writeShort(NULL_LENGTH);
+            return;
+        }
+        byte[] bytes = value.getBytes(StandardCharsets.UTF_8);
+        if (bytes.length >= NULL_LENGTH) {
+            throw new IOException("String too long to store");
+        }
+        out.writeShort(bytes.length);
+        out.write(bytes);
+    }
+
+    // ----- Reading -----
+
+    private record GameRecord(GameSummary summary, GameData game) {
+    }
+
+    // Reads the game record at offset; the board is only decoded if withState is set
+    private GameRecord readGame(int offset, boolean withState) {
+        ByteBuffer in = log.duplicate().position(offset + RECORD_HEADER_BYTES + 1);
+        int gameID = in.getInt();
+        String white = readString(in);
+        String black = readString(in);
+        String name = readString(in);
+        GameSummary summary = new GameSummary(gameID, white, black, name);
+        if (!withState) {
+            return new GameRecord(summary, null);
+        }
+        int stateLength = in.getShort() & 0xFFFF;
+        ChessGame game = null;
+        if (stateLength != NULL_LENGTH) {
+            byte[] state = new byte[stateLength];
+            in.get(state);
+            game = GameCodec.decode(state);
+        }
+        return new GameRecord(summary, new GameData(gameID, white, black, name, game));
+    }
+
+    private ByteBuffer copyRecord(int offset) {
+        int length = log.getInt(offset) + RECORD_HEADER_BYTES;
+        return log.slice(offset, length);
+    }
+
+    private static String readString(ByteBuffer in) {
+        int length = in.getShort() & 0xFFFF;
+        if (length == NULL_LENGTH) {
+            return null;
+        }
+        byte[] bytes = new byte[length];
+        in.get(bytes);
+        return new String(bytes, StandardCharsets.UTF_8);
+    }
+
+    private void replay() throws DataAccessException {
+        byte[] magic = new byte[MAGIC.length];
+        log.get(0, magic);
+        if (!Arrays.equals(magic, MAGIC)) {
+            throw new DataAccessException(file + " isn't a chess log file");
+        }
+
+        int offset = MAGIC.length;
+        CRC32 crc = new CRC32();
+        while (offset + RECORD_HEADER_BYTES < log.capacity()) {
+            int length = log.getInt(offset);
+            if (length <= 0 || offset + RECORD_HEADER_BYTES + (long) length > log.capacity()) {
+                break;
+            }
+            crc.reset();
+            crc.update(log.slice(offset + RECORD_HEADER_BYTES, length));
+            if ((int) crc.getValue() != log.getInt(offset + 4)) {
+                break; // torn write from a crash, nothing after it was acknowledged
+            }
+
+            ByteBuffer in = log.duplicate().position(offset + RECORD_HEADER_BYTES);
+            switch (in.get()) {
+                case TYPE_USER -> {
+                    UserData user = new UserData(readString(in), readString(in), readString(in));
+                    users.put(user.username(), user);
+                }
+                case TYPE_AUTH -> {
+                    AuthData auth = new AuthData(readString(in), readString(in));
+                    authTokens.put(auth.authToken(), auth);
+                }
+                case TYPE_AUTH_DELETE -> authTokens.remove(readString(in));
+                case TYPE_GAME -> {
+                    int gameID = in.getInt();
+                    gameOffsets.put(gameID, offset);
+                    nextGameID = Math.max(nextGameID, gameID + 1);
+                }
+                default -> throw new DataAccessException("Unknown record type at " + offset + " in " + file);
+            }
+            records++;
+            offset += RECORD_HEADER_BYTES + length;
+        }
+        end = offset;
+        if (end + 4 <= log.capacity()) {
+            log.putInt(end, 0); // anything after here is garbage from the crashed write
+        }
+    }
+}
@@ -0,0 +1,139 @@
+package dataaccess;
+
+import chess.ChessGame;
+import chess.ChessMove;
+import chess.ChessPosition;
+import model.AuthData;
+import model.GameData;
+import model.UserData;
+import org.junit.jupiter.api.*;
+import org.junit.jupiter.api.io.TempDir;
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.io.RandomAccessFile;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+public class LogDataAccessTests {
+    @TempDir
+    static Path dir;
+
+    private static int files;
+
+    private static Path newFile() {
+        return dir.resolve("chess" + files++ + ".log");
+    }
+
+    // The shared DAO tests, run against the log instead of MySQL
+    @Nested
+    class Users extends UserDAOTests {
+        @Override
+        protected DataAccess newDataAccess() throws DataAccessException {
+            return new LogDataAccess(newFile());
+        }
+    }
+
+    @Nested
+    class Auth extends AuthDAOTests {
+        @Override
+        protected DataAccess newDataAccess() throws DataAccessException {
+            return new LogDataAccess(newFile());
+        }
+    }
+
+    @Nested
+    class Games extends GameDAOTests {
+        @Override
+        protected DataAccess newDataAccess() throws DataAccessException {
+            return new LogDataAccess(newFile());
+        }
+    }
+
+    @Test
+    public void reopenReplaysTheLog() throws Exception {
+        Path file = newFile();
+        ChessGame chess = new ChessGame();
+        chess.makeMove(new ChessMove(new ChessPosition(2, 5), new ChessPosition(4, 5), null));
+        int gameID;
+        try (LogDataAccess database = new LogDataAccess(file)) {
+            database.createUser(new UserData("sophia", "hash", "s@e.com"));
+            database.createAuth(new AuthData("token1", "sophia"));
+            database.createAuth(new AuthData("token2", "sophia"));
+            database.deleteAuth("token1");
+            gameID = database.createGame(new GameData(0, null, null, "Game", new ChessGame())).gameID();
+            database.updateGame(new GameData(gameID, "sophia", null, "Game", chess));
+        }
+
+        try (LogDataAccess database = new LogDataAccess(file)) {
+            assertEquals("hash", database.getUser("sophia").password());
+            assertNull(database.getAuth("token1"));
+            assertEquals("sophia", database.getAuth("token2").username());
+            GameData game = database.getGame(gameID);
+            assertEquals("sophia", game.whiteUsername());
+            assertEquals(chess, game.game());
+            assertEquals(gameID + 1, database.createGame(new GameData(0, null, null, "Next", null)).gameID());
+        }
+    }
+
+    @Test
+    public void tornWriteIsDroppedOnReplay() throws Exception {
+        Path file = newFile();
+        try (LogDataAccess database = new LogDataAccess(file)) {
+            database.createUser(new UserData("first", "hash", null));
+            database.createUser(new UserData("second", "hash", null));
+        }
+
+        // Flip a byte in the last record, as if the machine died halfway through writing it
+        String contents = new String(Files.readAllBytes(file), StandardCharsets.ISO_8859_1);
+        try (RandomAccessFile raw = new RandomAccessFile(file.toFile(), "rw")) {
+            raw.seek(contents.lastIndexOf("second"));
+            raw.write('X');
+        }
+
+        try (LogDataAccess database = new LogDataAccess(file)) {
+            assertNotNull(database.getUser("first"));
+            assertNull(database.getUser("second"));
+            // and the next write goes where the bad record was
+            database.createUser(new UserData("third", "hash", null));
+        }
+        try (LogDataAccess database = new LogDataAccess(file)) {
+            assertNotNull(database.getUser("third"));
+        }
+    }
+
+    @Test
+    public void updatesGetCompactedAway() throws Exception {
+        Path file = newFile();
+        try (LogDataAccess database = new LogDataAccess(file)) {
+            int gameID = database.createGame(new GameData(0, null, null, "Game", new ChessGame())).gameID();
+            for (int i = 0; i < 10_000; i++) {
+                database.updateGame(new GameData(gameID, "player" + i, null, "Game", new ChessGame()));
+            }
+            assertEquals("player9999", database.getGame(gameID).whiteUsername());
+
+            // 10,000 updates of ~54 bytes would be ~540 KB if nothing were compacted
+            assertTrue(database.getLogBytes() < 300_000, "log is " + database.getLogBytes() + " bytes");
+            database.compact();
+            assertTrue(database.getLogBytes() < 100, "log is " + database.getLogBytes() + " bytes");
+        }
+        try (LogDataAccess database = new LogDataAccess(file)) {
+            assertEquals("player9999", database.listGames().iterator().next().whiteUsername());
+        }
+    }
+
+    @Test
+    public void clearEmptiesTheFile() throws Exception {
+        Path file = newFile();
+        try (LogDataAccess database = new LogDataAccess(file)) {
+            database.createUser(new UserData("sophia", "hash", null));
+            database.createGame(new GameData(0, null, null, "Game", new ChessGame()));
+            database.clear();
+            assertNull(database.getUser("sophia"));
+        }
+        try (LogDataAccess database = new LogDataAccess(file)) {
+            assertTrue(database.getAllUsers().isEmpty());
+            assertEquals(1, database.createGame(new GameData(0, null, null, "Again", null)).gameID());
+        }
+    }
+}
@@ -3,6 +3,7 @@ package dataaccess;
 import chess.ChessGame;
 import model.AuthData;
 import model.GameData;
+import model.GameSummary;
 import model.UserData;
 
 import java.util.*;
@@ -11,7 +12,8 @@ public class MemoryDAO implements DataAccess {
 
     private final Map<String, UserData> users = new HashMap<>();
     private final Map<String, AuthData> authTokens = new HashMap<>();
-    private final Map<Integer, GameData> games = new HashMap<>();
+    // Sorted by id so a page of listGameSummaries can start right after the cursor
+    private final NavigableMap<Integer, GameData> games = new TreeMap<>();
 
     private int nextGameID = 1;
 
@@ -31,6 +33,11 @@ public class MemoryDAO implements DataAccess {
         return users.values();
     }
 
+    @Override
+    public void updatePassword(String username, String hashedPassword) {
+        users.computeIfPresent(username, (name, user) -> new UserData(name, hashedPassword, user.email()));
+    }
+
     // ---- Auth ----
     @Override
     public AuthData createAuth(AuthData auth) {
@@ -81,9 +88,24 @@ public class MemoryDAO implements DataAccess {
         return games.values();
     }
 
+    @Override
+    public List<GameSummary> listGameSummaries(GameQuery query) {
+        List<GameSummary> page = new ArrayList<>();
+        for (GameData g : games.tailMap(query.afterGameID(), false).values()) {
+            if (query.matches(g.gameID(), g.whiteUsername(), g.blackUsername(), g.gameName())) {
+                page.add(new GameSummary(g.gameID(), g.whiteUsername(), g.blackUsername(), g.gameName()));
+                if (page.size() == query.limit()) {
+                    break;
+                }
+            }
+        }
+        return page;
+    }
+
     @Override
     public void updateGame(GameData game) {
-        games.put(game.gameID(), game);
+        GameData stored = games.get(game.gameID());
+        games.put(game.gameID(), stored == null ? game : GameVersions.keepNewerBoard(game, stored.game()));
     }
 
     @Override
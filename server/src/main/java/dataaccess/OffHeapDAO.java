@@ -0,0 +1,450 @@
+package dataaccess;
+
+import chess.ChessGame;
+import chess.ChessMove;
+import chess.GameCodec;
+import model.AuthData;
+import model.GameData;
+import model.GameSummary;
+import model.UserData;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.List;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+/**
+ * An in-memory DataAccess that keeps games outside the Java heap, for servers holding
+ * millions of mostly idle games where the garbage collector would otherwise have to walk
+ * every board on every full collection.
+ * <p>
+ * Each game is written as one record into large direct ByteBuffers ("slabs"):
+ * <pre>
+ *   int    record length in bytes, header included
+ *   int    game id
+ *   string white username, black username, game name (2-byte length, then UTF-8; length 0xFFFF = null)
+ *   short  length of the game state, then the GameCodec bytes (length 0xFFFF = no game)
+ * </pre>
+ * The only thing on the heap per game is one long in the index, which is an array indexed by
+ * game id holding (slab number << 32 | offset), or -1 for no game. Records are never changed
+ * in place: an update appends a new record and repoints the index, and once a slab is mostly
+ * dead records its live ones are copied forward and the slab is reused.
+ * <p>
+ * Users and auth tokens are few and small next to games, so they stay in ordinary maps.
+ * Reads share a lock and writes take it exclusively.
+ */
+public class OffHeapDAO implements DataAccess {
+    public static final int DEFAULT_SLAB_BYTES = 16 << 20;
+
+    private static final long NO_GAME = -1;
+    private static final int NULL_LENGTH = 0xFFFF;
+    private static final int HEADER_BYTES = 8;
+    // Longest string a 2-byte length can hold (0xFFFF means null); names are VARCHAR(100)
+    // in the database, so real records are nowhere near this
+    private static final int MAX_STRING_BYTES = 0xFFFE;
+
+    private final ConcurrentHashMap<String, UserData> users = new ConcurrentHashMap<>();
+    private final ConcurrentHashMap<String, AuthData> authTokens = new ConcurrentHashMap<>();
+
+    private final ReentrantReadWriteLock lock = new ReentrantReadWriteLock();
+    private final int slabBytes;
+    private final List<ByteBuffer> slabs = new ArrayList<>();
+    private int[] liveBytes = new int[4];
+    private final ArrayDeque<Integer> freeSlabs = new ArrayDeque<>();
+    private int currentSlab = -1;
+
+    private long[] index = new long[1024];
+    private int nextGameID = 1;
+    private int gameCount;
+    private long totalLiveBytes;
+
+    public OffHeapDAO() {
+        this(DEFAULT_SLAB_BYTES);
+    }
+
+    /**
+     * @param slabBytes size of each off-heap buffer; a game record has to fit in one
+     */
+    public OffHeapDAO(int slabBytes) {
+        if (slabBytes < 4096) {
+            throw new IllegalArgumentException("slabBytes must be at least 4096");
+        }
+        this.slabBytes = slabBytes;
+        Arrays.fill(index, NO_GAME);
+    }
+
+    // ---- Users ----
+    @Override
+    public void createUser(UserData user) throws DataAccessException {
+        if (user.username() == null || user.password() == null) {
+            throw new DataAccessException("Unable to create user: missing username or password");
+        }
+        if (users.putIfAbsent(user.username(), user) != null) {
+            throw new DataAccessException("Unable to create user: " + user.username() + " already exists");
+        }
+    }
+
+    @Override
+    public UserData getUser(String username) {
+        return username == null ? null : users.get(username);
+    }
+
+    @Override
+    public Collection<UserData> getAllUsers() {
+        return List.copyOf(users.values());
+    }
+
+    @Override
+    public void updatePassword(String username, String hashedPassword) {
+        if (username != null) {
+            users.computeIfPresent(username, (name, user) -> new UserData(name, hashedPassword, user.email()));
+        }
+    }
+
+    // ---- Auth ----
+    @Override
+    public AuthData createAuth(AuthData auth) throws DataAccessException {
+        if (auth.authToken() == null) {
+            throw new DataAccessException("Unable to create auth token: missing token");
+        }
+        if (authTokens.putIfAbsent(auth.authToken(), auth) != null) {
+            throw new DataAccessException("Unable to create auth token: token already exists");
+        }
+        return auth;
+    }
+
+    @Override
+    public AuthData getAuth(String authToken) {
+        return authToken == null ? null : authTokens.get(authToken);
+    }
+
+    @Override
+    public void deleteAuth(String authToken) {
+        if (authToken != null) {
+            authTokens.remove(authToken);
+        }
+    }
+
+    // ---- Games ----
+    @Override
+    public GameData createGame(GameData game) throws DataAccessException {
+        if (game.gameName() == null) {
+            throw new DataAccessException("Unable to create game: missing name");
+        }
+        lock.writeLock().lock();
+        try {
+            int id = nextGameID++;
+            GameData newGame = new GameData(id, game.whiteUsername(), game.blackUsername(), game.gameName(), game.game());
+            store(newGame);
+            gameCount++;
+            return newGame;
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    @Override
+    public GameData getGame(int gameID) {
+        lock.readLock().lock();
+        try {
+            long location = locate(gameID);
+            return location == NO_GAME ? null : readGame(location);
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    @Override
+    public GameData getGameByName(String gameName) {
+        lock.readLock().lock();
+        try {
+            for (int id = 1; id < nextGameID; id++) {
+                long location = locate(id);
+                if (location != NO_GAME && gameName != null && gameName.equalsIgnoreCase(readSummary(location).gameName())) {
+                    return readGame(location);
+                }
+            }
+            return null;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    @Override
+    public Collection<GameData> listGames() {
+        lock.readLock().lock();
+        try {
+            List<GameData> games = new ArrayList<>(gameCount);
+            for (int id = 1; id < nextGameID; id++) {
+                long location = locate(id);
+                if (location != NO_GAME) {
+                    games.add(readGame(location));
+                }
+            }
+            return games;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    @Override
+    public List<GameSummary> listGameSummaries(GameQuery query) {
+        lock.readLock().lock();
+        try {
+            List<GameSummary> page = new ArrayList<>();
+            for (int id = query.afterGameID() + 1; id < nextGameID && page.size() < query.limit(); id++) {
+                long location = locate(id);
+                if (location == NO_GAME) {
+                    continue;
+                }
+                GameSummary g = readSummary(location);
+                if (query.matches(g.gameID(), g.whiteUsername(), g.blackUsername(), g.gameName())) {
+                    page.add(g);
+                }
+            }
+            return page;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    @Override
+    public void updateGame(GameData game) throws DataAccessException {
+        lock.writeLock().lock();
+        try {
+            long location = locate(game.gameID());
+            if (location == NO_GAME) {
+                return; // same as an UPDATE that matches no rows
+            }
+            store(GameVersions.keepNewerBoard(game, readGame(location).game()));
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    // Checked and stored under one write lock, so of two moves made on one read only the first lands
+    @Override
+    public void recordMove(GameData game, ChessMove move) throws DataAccessException {
+        lock.writeLock().lock();
+        try {
+            long location = locate(game.gameID());
+            if (location == NO_GAME) {
+                return;
+            }
+            GameVersions.checkNextMove(GameVersions.movesPlayed(readGame(location).game()), game);
+            store(game);
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    // ---- Utils ----
+    @Override
+    public void clear() {
+        users.clear();
+        authTokens.clear();
+        lock.writeLock().lock();
+        try {
+            index = new long[1024];
+            Arrays.fill(index, NO_GAME);
+            nextGameID = 1;
+            gameCount = 0;
+            totalLiveBytes = 0;
+            // Dropping the buffers lets the GC hand their memory back
+            slabs.clear();
+            freeSlabs.clear();
+            liveBytes = new int[4];
+            currentSlab = -1;
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * @return bytes reserved off the heap, live records and not-yet-reclaimed ones together
+     */
+    public long getOffHeapBytes() {
+        lock.readLock().lock();
+        try {
+            return (long) slabs.size() * slabBytes;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * @return bytes taken by the current version of every game
+     */
+    public long getLiveBytes() {
+        lock.readLock().lock();
+        try {
+            return totalLiveBytes;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    // ----- Internals -----
+
+    private long locate(int gameID) {
+        return gameID > 0 && gameID < index.length ? index[gameID] : NO_GAME;
+    }
+
+    private static int slabOf(long location) {
+        return (int) (location >>> 32);
+    }
+
+    private static int offsetOf(long location) {
+        return (int) location;
+    }
+
+    // Appends the game as a new record and points the index at it. Caller holds the write lock.
+    private void store(GameData game) throws DataAccessException {
+        byte[] white = utf8(game.whiteUsername());
+        byte[] black = utf8(game.blackUsername());
+        byte[] name = utf8(game.gameName());
+        byte[] state = game.game() == null ? null : GameCodec.encode(game.game());
+        int length = HEADER_BYTES + stringBytes(white) + stringBytes(black) + stringBytes(name) + stringBytes(state);
+        if (length > slabBytes) {
+            throw new DataAccessException("Unable to store game " + game.gameID() + ": record is larger than a slab");
+        }
+
+        ByteBuffer slab = slabWithRoom(length);
+        int slabNumber = currentSlab;
+        int offset = slab.position();
+        slab.putInt(length).putInt(game.gameID());
+        putBytes(slab, white);
+        putBytes(slab, black);
+        putBytes(slab, name);
+        putBytes(slab, state);
+
+        if (game.gameID() >= index.length) {
+            int oldLength = index.length;
+            index = Arrays.copyOf(index, Math.max(index.length * 2, game.gameID() + 1));
+            Arrays.fill(index, oldLength, index.length, NO_GAME);
+        }
+        long old = index[game.gameID()];
+        index[game.gameID()] = (long) slabNumber << 32 | offset;
+        liveBytes[slabNumber] += length;
+        totalLiveBytes += length;
+        // Only after the new record is indexed, since this may compact and move things around
+        if (old != NO_GAME) {
+            release(old);
+        }
+    }
+
+    // Marks a record dead, and reclaims its slab once most of it is dead
+    private void release(long location) {
+        int slab = slabOf(location);
+        int length = slabs.get(slab).getInt(offsetOf(location));
+        liveBytes[slab] -= length;
+        totalLiveBytes -= length;
+        if (slab != currentSlab && liveBytes[slab] < slabBytes / 4) {
+            compact(slab);
+        }
+    }
+
+    // Copies the slab's live records to the current slab and puts it on the free list
+    private void compact(int slab) {
+        ByteBuffer source = slabs.get(slab);
+        int end = source.position();
+        int offset = 0;
+        while (offset < end) {
+            int length = source.getInt(offset);
+            int gameID = source.getInt(offset + 4);
+            long location = (long) slab << 32 | offset;
+            if (locate(gameID) == location) {
+                ByteBuffer target = slabWithRoom(length);
+                int newOffset = target.position();
+                target.put(source.slice(offset, length));
+                index[gameID] = (long) currentSlab << 32 | newOffset;
+                liveBytes[currentSlab] += length;
+            }
+            offset += length;
+        }
+        liveBytes[slab] = 0;
+        source.clear();
+        freeSlabs.push(slab);
+    }
+
+    private ByteBuffer slabWithRoom(int length) {
+        if (currentSlab >= 0 && slabs.get(currentSlab).remaining() >= length) {
+            return slabs.get(currentSlab);
+        }
+        if (!freeSlabs.isEmpty()) {
+            currentSlab = freeSlabs.pop();
+        } else {
+            slabs.add(ByteBuffer.allocateDirect(slabBytes));
+            currentSlab = slabs.size() - 1;
+            if (currentSlab >= liveBytes.length) {
+                liveBytes = Arrays.copyOf(liveBytes, liveBytes.length * 2);
+            }
+        }
+        return slabs.get(currentSlab);
+    }
+
+    private GameData readGame(long location) {
+        ByteBuffer slab = slabs.get(slabOf(location));
+        String[] strings = new String[3];
+        int offset = readStrings(slab, offsetOf(location) + 8, strings);
+        int stateLength = slab.getShort(offset) & 0xFFFF;
+        ChessGame game = null;
+        if (stateLength != NULL_LENGTH) {
+            byte[] state = new byte[stateLength];
+            slab.get(offset + 2, state);
+            game = GameCodec.decode(state);
+        }
+        return new GameData(slab.getInt(offsetOf(location) + 4), strings[0], strings[1], strings[2], game);
+    }
+
+    // Like readGame but stops before the board
+    private GameSummary readSummary(long location) {
+        ByteBuffer slab = slabs.get(slabOf(location));
+        String[] strings = new String[3];
+        readStrings(slab, offsetOf(location) + 8, strings);
+        return new GameSummary(slab.getInt(offsetOf(location) + 4), strings[0], strings[1], strings[2]);
+    }
+
+    // Reads the three names into out and returns the offset just past them
+    private static int readStrings(ByteBuffer slab, int offset, String[] out) {
+        for (int i = 0; i < out.length; i++) {
+            int length = slab.getShort(offset) & 0xFFFF;
+            offset += 2;
+            if (length != NULL_LENGTH) {
+                byte[] bytes = new byte[length];
+                slab.get(offset, bytes);
+                out[i] = new String(bytes, StandardCharsets.UTF_8);
+                offset += length;
+            }
+        }
+        return offset;
+    }
+
+    private static byte[] utf8(String value) throws DataAccessException {
+        if (value == null) {
+            return null;
+        }
+        byte[] bytes = value.getBytes(StandardCharsets.UTF_8);
+        if (bytes.length > MAX_STRING_BYTES) {
+            throw new DataAccessException("Unable to store game: name too long");
+        }
+        return bytes;
+    }
+
+    private static int stringBytes(byte[] bytes) {
+        return 2 + (bytes == null ? 0 : bytes.length);
+    }
+
+    private static void putBytes(ByteBuffer slab, byte[] bytes) {
+        if (bytes == null) {
+            slab.putShort((short) NULL_LENGTH);
+        } else {
+            slab.putShort((short) bytes.length).put(bytes);
+        }
+    }
+}
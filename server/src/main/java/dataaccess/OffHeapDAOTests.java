@@ -0,0 +1,79 @@
+package dataaccess;
+
+import chess.ChessGame;
+import chess.ChessMove;
+import chess.ChessPosition;
+import model.GameData;
+import org.junit.jupiter.api.*;
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.util.List;
+
+public class OffHeapDAOTests {
+    private OffHeapDAO database;
+
+    @BeforeEach
+    public void setup() {
+        database = new OffHeapDAO(4096); // small slabs so a few updates fill and reclaim them
+    }
+
+    @Test
+    public void gameRoundTrips() throws Exception {
+        ChessGame chess = new ChessGame();
+        chess.makeMove(new ChessMove(new ChessPosition(2, 5), new ChessPosition(4, 5), null));
+        GameData created = database.createGame(new GameData(0, "white", null, "Ünïcode name", chess));
+
+        GameData found = database.getGame(created.gameID());
+        assertEquals(created, found);
+        assertEquals(ChessGame.TeamColor.BLACK, found.game().getTeamTurn());
+        assertNull(database.getGame(created.gameID() + 1));
+    }
+
+    @Test
+    public void repeatedUpdatesReclaimSpace() throws DataAccessException {
+        int[] ids = new int[20];
+        for (int i = 0; i < ids.length; i++) {
+            ids[i] = database.createGame(new GameData(0, null, null, "Game" + i, new ChessGame())).gameID();
+        }
+        for (int round = 0; round < 500; round++) {
+            int id = ids[round % ids.length];
+            database.updateGame(new GameData(id, "player" + round, null, "Game" + (id - 1), new ChessGame()));
+        }
+
+        // 500 updates of ~70 bytes would need ~9 slabs if nothing were reclaimed
+        assertTrue(database.getOffHeapBytes() <= 3 * 4096, "used " + database.getOffHeapBytes());
+        for (int i = 0; i < ids.length; i++) {
+            GameData game = database.getGame(ids[i]);
+            assertEquals("Game" + i, game.gameName());
+            assertEquals("player" + (480 + i), game.whiteUsername());
+            assertEquals(new ChessGame(), game.game());
+        }
+    }
+
+    @Test
+    public void summariesPageAndFilter() throws DataAccessException {
+        for (int i = 0; i < 5; i++) {
+            database.createGame(new GameData(0, i % 2 == 0 ? "white" : null, "black", "Game" + i, new ChessGame()));
+        }
+        var page = database.listGameSummaries(new GameQuery(1, 1, true, null, null));
+        assertEquals(List.of(2), page.stream().map(g -> g.gameID()).toList());
+        assertEquals(5, database.listGames().size());
+        assertEquals(3, database.getGameByName("game2").gameID());
+    }
+
+    @Test
+    public void updateMissingGameDoesNothing() throws DataAccessException {
+        database.updateGame(new GameData(7, null, null, "Nope", new ChessGame()));
+        assertNull(database.getGame(7));
+        assertTrue(database.listGames().isEmpty());
+    }
+
+    @Test
+    public void clearRemovesEverything() throws DataAccessException {
+        database.createGame(new GameData(0, null, null, "Game", new ChessGame()));
+        database.clear();
+        assertTrue(database.listGames().isEmpty());
+        assertEquals(0, database.getOffHeapBytes());
+        assertEquals(1, database.createGame(new GameData(0, null, null, "Again", new ChessGame())).gameID());
+    }
+}
@@ -1,21 +1,42 @@
 package dataaccess;
 
 import chess.ChessGame;
+import chess.ChessMove;
+import chess.GameCodec;
+import chess.InvalidMoveException;
+import chess.MoveList;
 import com.google.gson.Gson;
 import model.AuthData;
 import model.GameData;
+import model.GameSummary;
 import model.UserData;
-import org.mindrot.jbcrypt.BCrypt;
 
+import java.nio.charset.StandardCharsets;
 import java.sql.*;
 import java.util.ArrayList;
 import java.util.Collection;
 import java.util.List;
 
 public class SQLDataAccess implements DataAccess {
+    // Moves kept in game_moves before the whole game is written to games.game_state again
+    public static final int DEFAULT_SNAPSHOT_INTERVAL = 32;
+
     private final Gson gson = new Gson();
+    private final int snapshotInterval;
 
     public SQLDataAccess() throws DataAccessException {
+        this(DEFAULT_SNAPSHOT_INTERVAL);
+    }
+
+    /**
+     * @param snapshotInterval how many moves recordMove journals before it writes a full
+     *                         snapshot; getGame replays fewer than this many moves
+     */
+    public SQLDataAccess(int snapshotInterval) throws DataAccessException {
+        if (snapshotInterval < 1) {
+            throw new IllegalArgumentException("snapshotInterval must be at least 1");
+        }
+        this.snapshotInterval = snapshotInterval;
         try (Connection conn = DatabaseManager.getConnection()) {
             createTables(conn);
         } catch (Exception e) {
@@ -54,24 +75,155 @@ public class SQLDataAccess implements DataAccess {
                     game_name VARCHAR(100) NOT NULL,
                     white_player_id VARCHAR(50),
                     black_player_id VARCHAR(50),
-                    game_state JSON,
+                    game_state BLOB,
+                    moves_played INT NOT NULL DEFAULT 0,
                     created_at TIMESTAMP DEFAULT CURRENT_TIMESTAMP,
                     FOREIGN KEY (white_player_id) REFERENCES users(username) ON DELETE SET NULL,
                     FOREIGN KEY (black_player_id) REFERENCES users(username) ON DELETE SET NULL
                 );
             """);
+
+            // Moves played since game_state was last written, packed as in MoveList. seq is the
+            // game's move count after the move, so the ones game_state doesn't have yet are the
+            // ones past games.moves_played, and getGame replays those on top of it
+            stmt.executeUpdate("""
+                CREATE TABLE IF NOT EXISTS game_moves (
+                    game_id INT NOT NULL,
+                    seq INT NOT NULL,
+                    move SMALLINT NOT NULL,
+                    PRIMARY KEY (game_id, seq),
+                    FOREIGN KEY (game_id) REFERENCES games(game_id) ON DELETE CASCADE
+                );
+            """);
+
+            // For the filtered game listings; paging itself walks the primary key
+            ensureIndex(conn, stmt, "games", "idx_games_white", "white_player_id, game_id");
+            ensureIndex(conn, stmt, "games", "idx_games_black", "black_player_id, game_id");
+            ensureIndex(conn, stmt, "games", "idx_games_name", "game_name");
+
+            // Older databases don't have it; their snapshots and journals count moves from 0,
+            // which is what the column starts at
+            ensureColumn(conn, stmt, "games", "moves_played", "INT NOT NULL DEFAULT 0");
+        }
+        migrateGameState(conn);
+    }
+
+    // MySQL has no CREATE INDEX IF NOT EXISTS, so look it up first
+    private static void ensureIndex(Connection conn, Statement stmt, String table, String name, String columns)
+            throws SQLException {
+        DatabaseMetaData meta = conn.getMetaData();
+        for (String tableName : new String[]{table, table.toUpperCase()}) {
+            try (ResultSet rs = meta.getIndexInfo(null, null, tableName, false, false)) {
+                while (rs.next()) {
+                    if (name.equalsIgnoreCase(rs.getString("INDEX_NAME"))) {
+                        return;
+                    }
+                }
+            }
+        }
+        stmt.executeUpdate("CREATE INDEX " + name + " ON " + table + " (" + columns + ");");
+    }
+
+    private static void ensureColumn(Connection conn, Statement stmt, String table, String name, String definition)
+            throws SQLException {
+        DatabaseMetaData meta = conn.getMetaData();
+        for (String tableName : new String[]{table, table.toUpperCase()}) {
+            for (String columnName : new String[]{name, name.toUpperCase()}) {
+                try (ResultSet rs = meta.getColumns(null, null, tableName, columnName)) {
+                    if (rs.next()) {
+                        return;
+                    }
+                }
+            }
+        }
+        stmt.executeUpdate("ALTER TABLE " + table + " ADD COLUMN " + name + " " + definition + ";");
+    }
+
+    // ------------------- Game State Encoding -------------------
+    // game_state holds GameCodec bytes. It used to be a JSON column of Gson output, so older
+    // databases get the column converted and their rows re-encoded the first time we start.
+    // readGame still understands JSON, so a row the migration missed can always be read.
+    private void migrateGameState(Connection conn) throws SQLException {
+        if (isBinaryColumn(conn.getMetaData(), "games", "game_state")) {
+            return;
+        }
+        try (Statement stmt = conn.createStatement()) {
+            stmt.executeUpdate("ALTER TABLE games MODIFY game_state BLOB;");
+        }
+
+        String select = "SELECT game_id, game_state FROM games WHERE game_state IS NOT NULL;";
+        String update = "UPDATE games SET game_state=? WHERE game_id=?;";
+        boolean autoCommit = conn.getAutoCommit();
+        conn.setAutoCommit(false);
+        try (PreparedStatement query = conn.prepareStatement(select);
+             PreparedStatement stmt = conn.prepareStatement(update);
+             ResultSet rs = query.executeQuery()) {
+            int pending = 0;
+            while (rs.next()) {
+                byte[] state = rs.getBytes("game_state");
+                if (!isLegacyJson(state)) {
+                    continue;
+                }
+                stmt.setBytes(1, encodeGame(readGame(state)));
+                stmt.setInt(2, rs.getInt("game_id"));
+                stmt.addBatch();
+                pending++;
+            }
+            if (pending > 0) {
+                stmt.executeBatch();
+            }
+            conn.commit();
+        } catch (SQLException e) {
+            conn.rollback();
+            throw e;
+        } finally {
+            conn.setAutoCommit(autoCommit);
+        }
+    }
+
+    private static boolean isBinaryColumn(DatabaseMetaData meta, String table, String column) throws SQLException {
+        for (String name : new String[]{table, table.toUpperCase()}) {
+            try (ResultSet rs = meta.getColumns(null, null, name, column)) {
+                while (rs.next()) {
+                    if (!rs.getString("COLUMN_NAME").equalsIgnoreCase(column)) {
+                        continue;
+                    }
+                    int type = rs.getInt("DATA_TYPE");
+                    return type == Types.BLOB || type == Types.LONGVARBINARY
+                            || type == Types.VARBINARY || type == Types.BINARY;
+                }
+            }
+        }
+        return true; // can't tell, leave it alone
+    }
+
+    // Gson output is an object ("{...}") or, for a game that was never set, "null"
+    private static boolean isLegacyJson(byte[] state) {
+        return state.length > 0 && (state[0] == '{' || state[0] == 'n');
+    }
+
+    private static byte[] encodeGame(ChessGame game) {
+        return game == null ? null : GameCodec.encode(game);
+    }
+
+    private ChessGame readGame(byte[] state) {
+        if (state == null) {
+            return null;
         }
+        if (isLegacyJson(state)) {
+            return gson.fromJson(new String(state, StandardCharsets.UTF_8), ChessGame.class);
+        }
+        return GameCodec.decode(state);
     }
 
     // User
     @Override
     public void createUser(UserData user) throws DataAccessException {
-        String hashed = BCrypt.hashpw(user.password(), BCrypt.gensalt());
         String sql = "INSERT INTO users (username, hashed_password, email) VALUES (?, ?, ?);";
         try (Connection conn = DatabaseManager.getConnection();
              PreparedStatement stmt = conn.prepareStatement(sql)) {
             stmt.setString(1, user.username());
-            stmt.setString(2, hashed);
+            stmt.setString(2, user.password()); // already hashed by UserService
             stmt.setString(3, user.email());
             stmt.executeUpdate();
         } catch (SQLException e) {
@@ -119,6 +271,19 @@ public class SQLDataAccess implements DataAccess {
         }
     }
 
+    @Override
+    public void updatePassword(String username, String hashedPassword) throws DataAccessException {
+        String sql = "UPDATE users SET hashed_password=? WHERE username=?;";
+        try (Connection conn = DatabaseManager.getConnection();
+             PreparedStatement stmt = conn.prepareStatement(sql)) {
+            stmt.setString(1, hashedPassword);
+            stmt.setString(2, username);
+            stmt.executeUpdate();
+        } catch (SQLException e) {
+            throw new DataAccessException("Unable to update password", e);
+        }
+    }
+
     // Auth
     @Override
     public AuthData createAuth(AuthData auth) throws DataAccessException {
@@ -169,13 +334,15 @@ public class SQLDataAccess implements DataAccess {
     // Game
     @Override
     public GameData createGame(GameData game) throws DataAccessException {
-        String sql = "INSERT INTO games (game_name, white_player_id, black_player_id, game_state) VALUES (?, ?, ?, ?);";
+        String sql = "INSERT INTO games (game_name, white_player_id, black_player_id, game_state, moves_played) "
+                + "VALUES (?, ?, ?, ?, ?);";
         try (Connection conn = DatabaseManager.getConnection();
              PreparedStatement stmt = conn.prepareStatement(sql, Statement.RETURN_GENERATED_KEYS)) {
             stmt.setString(1, game.gameName());
             stmt.setString(2, game.whiteUsername());
             stmt.setString(3, game.blackUsername());
-            stmt.setString(4, gson.toJson(game.game()));
+            stmt.setBytes(4, encodeGame(game.game()));
+            stmt.setInt(5, GameVersions.movesPlayed(game.game()));
             stmt.executeUpdate();
 
             try (ResultSet keys = stmt.getGeneratedKeys()) {
@@ -191,48 +358,37 @@ public class SQLDataAccess implements DataAccess {
         }
     }
 
+    // A game's row with the journaled moves its snapshot doesn't have joined on, one row per
+    // move (or one row with a null move if there are none), so reading a game stays one round trip
+    private static final String SELECT_GAMES = """
+            SELECT g.game_id, g.white_player_id, g.black_player_id, g.game_name, g.game_state, m.move
+            FROM games g LEFT JOIN game_moves m ON m.game_id = g.game_id AND m.seq > g.moves_played
+            """;
+
     @Override
     public GameData getGame(int gameID) throws DataAccessException {
-        String sql = "SELECT * FROM games WHERE game_id=?;";
+        String sql = SELECT_GAMES + "WHERE g.game_id=? ORDER BY m.seq;";
         try (Connection conn = DatabaseManager.getConnection();
              PreparedStatement stmt = conn.prepareStatement(sql)) {
             stmt.setInt(1, gameID);
             try (ResultSet rs = stmt.executeQuery()) {
-                if (rs.next()) {
-                    ChessGame game = gson.fromJson(rs.getString("game_state"), ChessGame.class);
-                    return new GameData(
-                            rs.getInt("game_id"),
-                            rs.getString("white_player_id"),
-                            rs.getString("black_player_id"),
-                            rs.getString("game_name"),
-                            game
-                    );
-                }
+                List<GameData> games = readGames(rs, 1);
+                return games.isEmpty() ? null : games.get(0);
             }
-            return null;
         } catch (SQLException e) {
             throw new DataAccessException("Unable to get game", e);
         }
     }
 
     public GameData getGameByName(String gameName) throws DataAccessException {
-        String sql = "SELECT * FROM games WHERE game_name=?;";
+        String sql = SELECT_GAMES + "WHERE g.game_name=? ORDER BY g.game_id, m.seq;";
         try (Connection conn = DatabaseManager.getConnection();
              PreparedStatement stmt = conn.prepareStatement(sql)) {
             stmt.setString(1, gameName);
             try (ResultSet rs = stmt.executeQuery()) {
-                if (rs.next()) {
-                    ChessGame game = gson.fromJson(rs.getString("game_state"), ChessGame.class);
-                    return new GameData(
-                            rs.getInt("game_id"),
-                            rs.getString("white_player_id"),
-                            rs.getString("black_player_id"),
-                            rs.getString("game_name"),
-                            game
-                    );
-                }
+                List<GameData> games = readGames(rs, 1);
+                return games.isEmpty() ? null : games.get(0);
             }
-            return null;
         } catch (SQLException e) {
             throw new DataAccessException("Unable to get game by name", e);
         }
@@ -240,20 +396,104 @@ public class SQLDataAccess implements DataAccess {
 
     @Override
     public Collection<GameData> listGames() throws DataAccessException {
-        String sql = "SELECT * FROM games;";
-        List<GameData> games = new ArrayList<>();
+        String sql = SELECT_GAMES + "ORDER BY g.game_id, m.seq;";
         try (Connection conn = DatabaseManager.getConnection();
              PreparedStatement stmt = conn.prepareStatement(sql);
              ResultSet rs = stmt.executeQuery()) {
-            while (rs.next()) {
-                ChessGame game = gson.fromJson(rs.getString("game_state"), ChessGame.class);
-                games.add(new GameData(
-                        rs.getInt("game_id"),
+            return readGames(rs, Integer.MAX_VALUE);
+        } catch (SQLException e) {
+            throw new DataAccessException("Unable to list games", e);
+        }
+    }
+
+    // Reads up to max games from SELECT_GAMES rows ordered by game and then move
+    private List<GameData> readGames(ResultSet rs, int max) throws SQLException, DataAccessException {
+        List<GameData> games = new ArrayList<>();
+        GameData current = null;
+        while (rs.next()) {
+            int gameID = rs.getInt("game_id");
+            if (current == null || current.gameID() != gameID) {
+                if (games.size() == max) {
+                    break;
+                }
+                current = new GameData(
+                        gameID,
                         rs.getString("white_player_id"),
                         rs.getString("black_player_id"),
                         rs.getString("game_name"),
-                        game
-                ));
+                        readGame(rs.getBytes("game_state"))
+                );
+                games.add(current);
+            }
+            short move = rs.getShort("move");
+            if (!rs.wasNull()) {
+                replay(current, move);
+            }
+        }
+        return games;
+    }
+
+    // Journaled moves were checked by makeMove before they were recorded, and recordMove only
+    // takes a move made on the game as it stands, so they're applied as they are rather than
+    // running the legality check again on every read
+    private static void replay(GameData game, short move) throws DataAccessException {
+        try {
+            game.game().replayMove(move);
+        } catch (InvalidMoveException e) {
+            throw new DataAccessException("Move journal for game " + game.gameID() + " doesn't fit its board", e);
+        }
+    }
+
+    // The SQL and parameters for one page of listGameSummaries
+    private record SummaryQuery(String sql, List<Object> params) {
+        PreparedStatement prepare(Connection conn) throws SQLException {
+            PreparedStatement stmt = conn.prepareStatement(sql, ResultSet.TYPE_FORWARD_ONLY, ResultSet.CONCUR_READ_ONLY);
+            for (int i = 0; i < params.size(); i++) {
+                stmt.setObject(i + 1, params.get(i));
+            }
+            return stmt;
+        }
+    }
+
+    private static SummaryQuery summaryQuery(GameQuery query) {
+        StringBuilder sql = new StringBuilder(
+                "SELECT game_id, white_player_id, black_player_id, game_name FROM games WHERE game_id > ?");
+        List<Object> params = new ArrayList<>();
+        params.add(query.afterGameID());
+        if (query.openSeat()) {
+            sql.append(" AND (white_player_id IS NULL OR black_player_id IS NULL)");
+        }
+        if (query.player() != null) {
+            sql.append(" AND (white_player_id = ? OR black_player_id = ?)");
+            params.add(query.player());
+            params.add(query.player());
+        }
+        if (query.namePrefix() != null) {
+            sql.append(" AND game_name LIKE ? ESCAPE '!'");
+            params.add(query.namePrefix().replaceAll("[!%_]", "!$0") + "%");
+        }
+        sql.append(" ORDER BY game_id LIMIT ?;");
+        params.add(query.limit());
+        return new SummaryQuery(sql.toString(), params);
+    }
+
+    private static GameSummary readSummary(ResultSet rs) throws SQLException {
+        return new GameSummary(
+                rs.getInt("game_id"),
+                rs.getString("white_player_id"),
+                rs.getString("black_player_id"),
+                rs.getString("game_name")
+        );
+    }
+
+    @Override
+    public List<GameSummary> listGameSummaries(GameQuery query) throws DataAccessException {
+        List<GameSummary> games = new ArrayList<>();
+        try (Connection conn = DatabaseManager.getConnection();
+             PreparedStatement stmt = summaryQuery(query).prepare(conn);
+             ResultSet rs = stmt.executeQuery()) {
+            while (rs.next()) {
+                games.add(readSummary(rs));
             }
             return games;
         } catch (SQLException e) {
@@ -261,19 +501,127 @@ public class SQLDataAccess implements DataAccess {
         }
     }
 
+    // A full write is a new snapshot, so the journaled moves it already includes go. The board
+    // is only written if it's at least as far along as the one already there, so a write that
+    // started from an older read (a join, say) can't take back moves made since; and only the
+    // moves it includes are dropped, so the ones after it get replayed on top of it.
+    private static final String UPDATE_GAME = """
+            UPDATE games SET white_player_id=?, black_player_id=?, game_name=?,
+                game_state = CASE WHEN moves_played <= ? THEN ? ELSE game_state END,
+                moves_played = GREATEST(moves_played, ?)
+            WHERE game_id=?;
+            """;
+    private static final String CLEAR_MOVES = "DELETE FROM game_moves WHERE game_id=? AND seq <= ?;";
+
     @Override
     public void updateGame(GameData game) throws DataAccessException {
-        String sql = "UPDATE games SET white_player_id=?, black_player_id=?, game_name=?, game_state=? WHERE game_id=?;";
-        try (Connection conn = DatabaseManager.getConnection();
-             PreparedStatement stmt = conn.prepareStatement(sql)) {
-            stmt.setString(1, game.whiteUsername());
-            stmt.setString(2, game.blackUsername());
-            stmt.setString(3, game.gameName());
-            stmt.setString(4, gson.toJson(game.game()));
-            stmt.setInt(5, game.gameID());
-            stmt.executeUpdate();
+        updateGames(List.of(game));
+    }
+
+    @Override
+    public void updateGames(Collection<GameData> games) throws DataAccessException {
+        try (Connection conn = DatabaseManager.getConnection()) {
+            conn.setAutoCommit(false);
+            try (PreparedStatement update = conn.prepareStatement(UPDATE_GAME);
+                 PreparedStatement clearMoves = conn.prepareStatement(CLEAR_MOVES)) {
+                for (GameData game : games) {
+                    int movesPlayed = GameVersions.movesPlayed(game.game());
+                    update.setString(1, game.whiteUsername());
+                    update.setString(2, game.blackUsername());
+                    update.setString(3, game.gameName());
+                    update.setInt(4, movesPlayed);
+                    update.setBytes(5, encodeGame(game.game()));
+                    update.setInt(6, movesPlayed);
+                    update.setInt(7, game.gameID());
+                    update.addBatch();
+                    clearMoves.setInt(1, game.gameID());
+                    clearMoves.setInt(2, movesPlayed);
+                    clearMoves.addBatch();
+                }
+                update.executeBatch();
+                clearMoves.executeBatch();
+                conn.commit();
+            } catch (SQLException e) {
+                conn.rollback();
+                throw e;
+            }
+        } catch (SQLException e) {
+            throw new DataAccessException("Unable to update games", e);
+        }
+    }
+
+    /**
+     * Appends the move to the game's journal, a couple of bytes, instead of rewriting the
+     * game. Every snapshotInterval moves the whole game is written instead and the journal
+     * starts over. Like updateGame, does nothing if the game doesn't exist.
+     *
+     * @throws GameChangedException if the stored game has had a move since game was read
+     */
+    @Override
+    public void recordMove(GameData game, ChessMove move) throws DataAccessException {
+        if (game.game() == null) {
+            updateGame(game);
+            return;
+        }
+        int movesPlayed = game.game().getMovesPlayed();
+        // Locking the game's row makes concurrent moves on one game take turns. Whichever goes
+        // second finds the game a move further on than the one it was checked against, and is
+        // turned away rather than journaled as a second move from the same position.
+        String lockSql = "SELECT moves_played FROM games WHERE game_id=? FOR UPDATE;";
+        String lastSeqSql = "SELECT COALESCE(MAX(seq), 0) FROM game_moves WHERE game_id=?;";
+        String insertSql = "INSERT INTO game_moves (game_id, seq, move) VALUES (?, ?, ?);";
+        try (Connection conn = DatabaseManager.getConnection()) {
+            conn.setAutoCommit(false);
+            try {
+                int snapshotMoves;
+                try (PreparedStatement stmt = conn.prepareStatement(lockSql)) {
+                    stmt.setInt(1, game.gameID());
+                    try (ResultSet rs = stmt.executeQuery()) {
+                        if (!rs.next()) {
+                            conn.rollback();
+                            return;
+                        }
+                        snapshotMoves = rs.getInt(1);
+                    }
+                }
+                int storedMoves;
+                try (PreparedStatement stmt = conn.prepareStatement(lastSeqSql)) {
+                    stmt.setInt(1, game.gameID());
+                    try (ResultSet rs = stmt.executeQuery()) {
+                        rs.next();
+                        storedMoves = Math.max(snapshotMoves, rs.getInt(1));
+                    }
+                }
+                GameVersions.checkNextMove(storedMoves, game);
+
+                if (movesPlayed - snapshotMoves >= snapshotInterval) {
+                    try (PreparedStatement stmt = conn.prepareStatement(
+                            "UPDATE games SET game_state=?, moves_played=? WHERE game_id=?;")) {
+                        stmt.setBytes(1, encodeGame(game.game()));
+                        stmt.setInt(2, movesPlayed);
+                        stmt.setInt(3, game.gameID());
+                        stmt.executeUpdate();
+                    }
+                    try (PreparedStatement stmt = conn.prepareStatement(CLEAR_MOVES)) {
+                        stmt.setInt(1, game.gameID());
+                        stmt.setInt(2, movesPlayed);
+                        stmt.executeUpdate();
+                    }
+                } else {
+                    try (PreparedStatement stmt = conn.prepareStatement(insertSql)) {
+                        stmt.setInt(1, game.gameID());
+                        stmt.setInt(2, movesPlayed);
+                        stmt.setShort(3, (short) MoveList.pack(move));
+                        stmt.executeUpdate();
+                    }
+                }
+                conn.commit();
+            } catch (SQLException | GameChangedException e) {
+                conn.rollback();
+                throw e;
+            }
         } catch (SQLException e) {
-            throw new DataAccessException("Unable to update game", e);
+            throw new DataAccessException("Unable to record move", e);
         }
     }
 
@@ -283,6 +631,7 @@ public class SQLDataAccess implements DataAccess {
         try (Connection conn = DatabaseManager.getConnection();
              Statement stmt = conn.createStatement()) {
             stmt.executeUpdate("DELETE FROM auth_tokens;");
+            stmt.executeUpdate("DELETE FROM game_moves;");
             stmt.executeUpdate("DELETE FROM games;");
             stmt.executeUpdate("DELETE FROM users;");
         } catch (SQLException e) {
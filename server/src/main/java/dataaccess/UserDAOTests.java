@@ -5,11 +5,16 @@ import org.junit.jupiter.api.*;
 import static org.junit.jupiter.api.Assertions.*;
 
 public class UserDAOTests {
-    private SQLDataAccess database;
+    private DataAccess database;
+
+    // Other DataAccess implementations run these same tests by overriding this
+    protected DataAccess newDataAccess() throws DataAccessException {
+        return new SQLDataAccess();
+    }
 
     @BeforeEach
     public void setup() throws DataAccessException {
-        database = new SQLDataAccess();
+        database = newDataAccess();
         database.clear();
     }
 
@@ -47,4 +52,20 @@ public class UserDAOTests {
         database.clear();
         assertNull(database.getUser("sophia"));
     }
+
+    @Test
+    public void createUserStoresPasswordAsGiven() throws DataAccessException {
+        // Hashing is the service's job; hashing again here would make the password unusable
+        database.createUser(new UserData("sophia", "$2a$04$alreadyHashedValue", "s@e.com"));
+        assertEquals("$2a$04$alreadyHashedValue", database.getUser("sophia").password());
+    }
+
+    @Test
+    public void updatePasswordReplacesHash() throws DataAccessException {
+        database.createUser(new UserData("sophia", "oldHash", "s@e.com"));
+        database.updatePassword("sophia", "newHash");
+        database.updatePassword("nobody", "newHash");
+        assertEquals(new UserData("sophia", "newHash", "s@e.com"), database.getUser("sophia"));
+        assertNull(database.getUser("nobody"));
+    }
 }
@@ -0,0 +1,11 @@
+package exception;
+
+public class ServiceUnavailableException extends ResponseException {
+    public ServiceUnavailableException(String message) {
+        super(503, "Error: " + message);
+    }
+
+    public ServiceUnavailableException() {
+        this("server busy, try again");
+    }
+}
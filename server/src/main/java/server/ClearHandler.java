@@ -1,31 +0,0 @@
-package server;
-
-import com.google.gson.Gson;
-import service.ClearService;
-import spark.Request;
-import spark.Response;
-import spark.Route;
-
-public class ClearHandler implements Route {
-
-    private final ClearService clearService;
-    private final Gson gson = new Gson();
-
-    public ClearHandler(ClearService clearService) {
-        this.clearService = clearService;
-    }
-
-    @Override
-    public Object handle(Request req, Response res) {
-        try {
-            clearService.clearApplication();
-            res.status(200);
-            return gson.toJson(new Object());
-        } catch (Exception e) {
-            res.status(500);
-            return gson.toJson(new ErrorMessage("Error: " + e.getMessage()));
-        }
-    }
-
-    record ErrorMessage(String message) {}
-}
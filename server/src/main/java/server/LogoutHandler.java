@@ -1,36 +0,0 @@
-package server;
-
-import com.google.gson.Gson;
-import service.UserService;
-import spark.Request;
-import spark.Response;
-import spark.Route;
-
-public class LogoutHandler implements Route {
-
-    private final UserService userService;
-    private final Gson gson = new Gson();
-
-    public LogoutHandler(UserService userService) {
-        this.userService = userService;
-    }
-
-    @Override
-    public Object handle(Request req, Response res) {
-        String auth = req.headers("Authorization");
-
-        try {
-            userService.logout(auth);
-            res.status(200);
-            return gson.toJson(new Object());
-        } catch (exception.UnauthorizedException e) {
-            res.status(401);
-            return gson.toJson(new ErrorMessage("Error: unauthorized"));
-        } catch (Exception e) {
-            res.status(500);
-            return gson.toJson(new ErrorMessage("Error: " + e.getMessage()));
-        }
-    }
-
-    record ErrorMessage(String message) {}
-}
@@ -0,0 +1,143 @@
+package server;
+
+import com.google.gson.JsonParseException;
+import com.google.gson.stream.JsonWriter;
+import dataaccess.DataAccessException;
+import exception.BadRequestException;
+import exception.ResponseException;
+import io.javalin.Javalin;
+import io.javalin.http.ContentType;
+import io.javalin.http.Context;
+import service.ClearService;
+import service.GameService;
+import service.UserService;
+import web.ErrorResponse;
+import web.Json;
+
+import java.io.BufferedWriter;
+import java.io.OutputStreamWriter;
+import java.nio.charset.StandardCharsets;
+import java.util.Map;
+
+/**
+ * Every HTTP endpoint, and the one place that turns their exceptions into responses.
+ * <p>
+ * Bodies are read and written through Javalin's JSON mapper (the shared Gson, see
+ * {@link Json}), except game listings, which are written straight to the response. Endpoints just throw: a
+ * ResponseException becomes its status code with an {@link ErrorResponse}, and anything
+ * else becomes a 500.
+ */
+public class Routes {
+    private static final Map<String, Object> EMPTY = Map.of();
+
+    private final UserService userService;
+    private final GameService gameService;
+    private final ClearService clearService;
+
+    public Routes(UserService userService, GameService gameService, ClearService clearService) {
+        this.userService = userService;
+        this.gameService = gameService;
+        this.clearService = clearService;
+    }
+
+    public void register(Javalin app) {
+        app.post("/user", this::registerUser);
+        app.post("/session", this::login);
+        app.delete("/session", this::logout);
+
+        app.get("/game", this::listGames);
+        app.post("/game", this::createGame);
+        app.put("/game", this::joinGame);
+
+        app.delete("/db", this::clear);
+
+        app.exception(ResponseException.class, (e, ctx) -> error(ctx, e.getStatusCode(), e.getMessage()));
+        app.exception(DataAccessException.class, (e, ctx) -> error(ctx, 500, "Error: " + e.getMessage()));
+        app.exception(Exception.class, (e, ctx) -> error(ctx, 500, "Error: " + e.getMessage()));
+
+        Json.warmUp(UserService.RegisterRequest.class, UserService.LoginRequest.class, UserService.AuthResult.class,
+                GameService.CreateGameRequest.class, GameService.CreateGameResult.class,
+                GameService.JoinGameRequest.class, GameService.ListGamesResult.class, GameService.GameInfo.class,
+                ErrorResponse.class);
+    }
+
+    // ---- Users ----
+    private void registerUser(Context ctx) throws Exception {
+        ctx.json(userService.register(body(ctx, UserService.RegisterRequest.class)));
+    }
+
+    private void login(Context ctx) throws Exception {
+        ctx.json(userService.login(body(ctx, UserService.LoginRequest.class)));
+    }
+
+    private void logout(Context ctx) throws Exception {
+        userService.logout(ctx.header("Authorization"));
+        ctx.json(EMPTY);
+    }
+
+    // ---- Games ----
+    // The page is read first, so a slow client never holds a database connection, and then
+    // serialized straight into the response instead of into one big String first
+    private void listGames(Context ctx) throws Exception {
+        // All optional: ?cursor=<nextCursor>&limit=<n>&open=true&player=<username>&prefix=<name start>
+        var query = new GameService.ListGamesRequest(
+                intParam(ctx, "cursor"),
+                intParam(ctx, "limit"),
+                Boolean.parseBoolean(ctx.queryParam("open")),
+                ctx.queryParam("player"),
+                ctx.queryParam("prefix"));
+        GameService.ListGamesResult page = gameService.listGames(ctx.header("Authorization"), query);
+
+        ctx.contentType(ContentType.APPLICATION_JSON);
+        try (JsonWriter json = Json.GSON.newJsonWriter(new BufferedWriter(
+                new OutputStreamWriter(ctx.outputStream(), StandardCharsets.UTF_8)))) {
+            Json.GSON.toJson(page, GameService.ListGamesResult.class, json);
+        }
+    }
+
+    private void createGame(Context ctx) throws Exception {
+        String token = ctx.header("Authorization");
+        ctx.json(gameService.createGame(token, body(ctx, GameService.CreateGameRequest.class)));
+    }
+
+    private void joinGame(Context ctx) throws Exception {
+        String token = ctx.header("Authorization");
+        gameService.joinGame(token, body(ctx, GameService.JoinGameRequest.class));
+        ctx.json(EMPTY);
+    }
+
+    // ---- Utils ----
+    private void clear(Context ctx) throws Exception {
+        clearService.clearApplication();
+        ctx.json(EMPTY);
+    }
+
+    private static void error(Context ctx, int status, String message) {
+        ctx.status(status).json(new ErrorResponse(message));
+    }
+
+    // A missing or malformed body is the client's fault, not a 500
+    private static <T> T body(Context ctx, Class<T> type) throws BadRequestException {
+        try {
+            T body = ctx.bodyAsClass(type);
+            if (body == null) {
+                throw new BadRequestException();
+            }
+            return body;
+        } catch (JsonParseException e) {
+            throw new BadRequestException();
+        }
+    }
+
+    private static Integer intParam(Context ctx, String name) throws BadRequestException {
+        String value = ctx.queryParam(name);
+        if (value == null || value.isBlank()) {
+            return null;
+        }
+        try {
+            return Integer.parseInt(value.trim());
+        } catch (NumberFormatException e) {
+            throw new BadRequestException("bad request: " + name + " must be a number");
+        }
+    }
+}
@@ -0,0 +1,141 @@
+package server;
+
+import dataaccess.DataAccessException;
+import dataaccess.ForwardingDataAccess;
+import dataaccess.GameQuery;
+import dataaccess.MemoryDAO;
+import exception.ServiceUnavailableException;
+import io.javalin.Javalin;
+import model.GameSummary;
+import org.junit.jupiter.api.*;
+import service.ClearService;
+import service.GameService;
+import service.PasswordHasher;
+import service.UserService;
+import web.ErrorResponse;
+import web.GsonJavalinJsonMapper;
+import web.Json;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.util.List;
+
+// The exception-to-status mapping, over real HTTP against an in-memory DAO
+public class RoutesTests {
+    private Javalin app;
+    private PasswordHasher hasher;
+    private FailingDataAccess dao;
+    private final HttpClient http = HttpClient.newHttpClient();
+
+    // Lets a test make listings fail the way a broken backend would
+    private static final class FailingDataAccess extends ForwardingDataAccess {
+        Exception failure;
+
+        FailingDataAccess() {
+            super(new MemoryDAO());
+        }
+
+        @Override
+        public List<GameSummary> listGameSummaries(GameQuery query) throws DataAccessException {
+            if (failure instanceof DataAccessException e) {
+                throw e;
+            }
+            if (failure instanceof RuntimeException e) {
+                throw e;
+            }
+            return super.listGameSummaries(query);
+        }
+    }
+
+    @BeforeEach
+    public void start() {
+        dao = new FailingDataAccess();
+        hasher = new PasswordHasher(new PasswordHasher.Config(1, 4, 4, 5_000));
+        app = Javalin.create(config -> {
+            config.showJavalinBanner = false;
+            config.jsonMapper(new GsonJavalinJsonMapper(Json.GSON));
+        });
+        new Routes(new UserService(dao, hasher), new GameService(dao), new ClearService(dao)).register(app);
+        app.start(0);
+    }
+
+    @AfterEach
+    public void stop() {
+        app.stop();
+        hasher.close();
+    }
+
+    private HttpResponse<String> send(String method, String path, String token, String body) throws Exception {
+        var request = HttpRequest.newBuilder(URI.create("http://localhost:" + app.port() + path))
+                .method(method, body == null ? HttpRequest.BodyPublishers.noBody()
+                        : HttpRequest.BodyPublishers.ofString(body));
+        if (token != null) {
+            request.header("Authorization", token);
+        }
+        return http.send(request.build(), HttpResponse.BodyHandlers.ofString());
+    }
+
+    private static void assertError(int status, HttpResponse<String> response) {
+        assertEquals(status, response.statusCode(), response.body());
+        String message = Json.GSON.fromJson(response.body(), ErrorResponse.class).message();
+        assertTrue(message.startsWith("Error: "), message);
+    }
+
+    private String register(String username) throws Exception {
+        var response = send("POST", "/user", null,
+                "{\"username\":\"" + username + "\",\"password\":\"pw\",\"email\":\"e@x.com\"}");
+        assertEquals(200, response.statusCode(), response.body());
+        return Json.GSON.fromJson(response.body(), UserService.AuthResult.class).authToken();
+    }
+
+    @Test
+    public void malformedBodyIs400() throws Exception {
+        assertError(400, send("POST", "/user", null, "{\"username\": "));
+        assertError(400, send("POST", "/user", null, "[1, 2]"));
+        assertError(400, send("POST", "/session", null, null));
+    }
+
+    @Test
+    public void badTokenIs401() throws Exception {
+        assertError(401, send("GET", "/game", "not-a-token", null));
+        assertError(401, send("POST", "/game", null, "{\"gameName\":\"g\"}"));
+    }
+
+    @Test
+    public void takenSeatIs403() throws Exception {
+        String white = register("white");
+        String other = register("other");
+        var created = send("POST", "/game", white, "{\"gameName\":\"g\"}");
+        int gameID = Json.GSON.fromJson(created.body(), GameService.CreateGameResult.class).gameID();
+
+        String join = "{\"playerColor\":\"WHITE\",\"gameID\":" + gameID + "}";
+        assertEquals(200, send("PUT", "/game", white, join).statusCode());
+        assertError(403, send("PUT", "/game", other, join));
+    }
+
+    @Test
+    public void serviceUnavailableIs503() throws Exception {
+        String token = register("busy");
+        dao.failure = new ServiceUnavailableException();
+        assertError(503, send("GET", "/game", token, null));
+
+        hasher.close(); // nothing left to hash with
+        assertError(503, send("POST", "/session", null, "{\"username\":\"busy\",\"password\":\"pw\"}"));
+    }
+
+    @Test
+    public void anythingElseIs500() throws Exception {
+        String token = register("broken");
+        dao.failure = new DataAccessException("database went away");
+        var response = send("GET", "/game", token, null);
+        assertError(500, response);
+        assertTrue(response.body().contains("database went away"), response.body());
+
+        dao.failure = new IllegalStateException("bug");
+        assertError(500, send("GET", "/game", token, null));
+    }
+}
@@ -1,58 +1,114 @@
 package server;
 
-import spark.Spark;
+import chess.ChessGame;
+import chess.LegalMoveCache;
+import dataaccess.AuthCachingDataAccess;
+import dataaccess.CachingDataAccess;
+import dataaccess.DataAccess;
 import dataaccess.DataAccessException;
 import dataaccess.DatabaseManager;
-import org.eclipse.jetty.websocket.api.annotations.WebSocket;
+import dataaccess.SQLDataAccess;
+import io.javalin.Javalin;
+import io.javalin.http.staticfiles.Location;
+import service.ClearService;
+import service.GameService;
+import service.PasswordHasher;
+import service.UserService;
+import web.GsonJavalinJsonMapper;
+import web.Json;
 
-@WebSocket
+/**
+ * The HTTP server, on Javalin.
+ * <p>
+ * Every request blocks somewhere, on MySQL or on a password hash, so by default requests are
+ * handled on virtual threads: a request waiting on the database parks its virtual thread
+ * instead of holding one of a fixed number of Jetty threads, and the number of requests in
+ * flight is limited by the connection pool and the password hasher rather than the web server.
+ * Pass virtualThreads = false to go back to Jetty's platform thread pool.
+ */
 public class Server {
+    // Passwords are hashed at whatever cost takes about this long on this machine, unless
+    // -Dchess.hashBudgetMillis says otherwise
+    private static final long DEFAULT_HASH_BUDGET_MILLIS = 100;
+    // Memory for caching validMoves results across every game, unless -Dchess.legalMoveCacheMB
+    // says otherwise; 0 turns the cache off
+    private static final long DEFAULT_LEGAL_MOVE_CACHE_MB = 16;
 
-    private final WebSocketServer socketServer;
+    private final boolean virtualThreads;
+    private final DataAccess givenDataAccess;
+
+    private Javalin app;
+    private CachingDataAccess gameCache;
+    private PasswordHasher hasher;
+    private LegalMoveCache legalMoveCache;
 
     public Server() {
-        this.socketServer = new WebSocketServer();
+        this(true);
     }
 
-    public int run(int port) {
-        Spark.port(port);
-        Spark.staticFiles.location("web");
-
-        Spark.webSocket("/ws", socketServer);
-        System.out.println("websocket active on /ws");
-
-        addRoutes();
-        Spark.init();
-
-        initDB();
+    public Server(boolean virtualThreads) {
+        this(null, virtualThreads);
+    }
 
-        Spark.awaitInitialization();
-        return Spark.port();
+    /**
+     * Serves from dataAccess (e.g. a MemoryDAO or LogDataAccess) instead of MySQL
+     */
+    public Server(DataAccess dataAccess, boolean virtualThreads) {
+        this.givenDataAccess = dataAccess;
+        this.virtualThreads = virtualThreads;
     }
 
-    private void addRoutes() {
-        Spark.post("/user", new RegisterHandler());
-        Spark.post("/session", new LoginHandler());
-        Spark.delete("/session", new LogoutHandler());
+    public int run(int port) {
+        DataAccess dataAccess = givenDataAccess != null ? givenDataAccess : initDB();
+        long hashBudgetMillis = Long.getLong("chess.hashBudgetMillis", DEFAULT_HASH_BUDGET_MILLIS);
+        hasher = new PasswordHasher(PasswordHasher.Config.forLatencyBudget(hashBudgetMillis));
+        long legalMoveCacheMB = Long.getLong("chess.legalMoveCacheMB", DEFAULT_LEGAL_MOVE_CACHE_MB);
+        if (legalMoveCacheMB > 0) {
+            legalMoveCache = new LegalMoveCache(legalMoveCacheMB * 1024 * 1024);
+            ChessGame.setLegalMoveCache(legalMoveCache);
+        }
 
-        Spark.get("/game", new ListGamesHandler());
-        Spark.post("/game", new CreateGameHandler());
-        Spark.put("/game", new JoinGameHandler());
+        app = Javalin.create(config -> {
+            config.useVirtualThreads = virtualThreads;
+            config.showJavalinBanner = false;
+            config.staticFiles.add("web", Location.CLASSPATH);
+            config.jsonMapper(new GsonJavalinJsonMapper(Json.GSON));
+        });
+        new Routes(new UserService(dataAccess, hasher), new GameService(dataAccess), new ClearService(dataAccess))
+                .register(app);
 
-        Spark.delete("/db", new ClearHandler());
+        app.start(port);
+        return app.port();
     }
 
-    private void initDB() {
+    private DataAccess initDB() {
         try {
             DatabaseManager.createDatabase();
+            gameCache = CachingDataAccess.start(new SQLDataAccess());
+            return new AuthCachingDataAccess(gameCache);
         } catch (DataAccessException e) {
             System.err.println("db init failed: " + e.getMessage());
             System.exit(1);
+            return null;
         }
     }
 
     public void stop() {
-        Spark.stop();
-        Spark.awaitStop();
+        if (app == null) {
+            return; // never started
+        }
+        app.stop();
+        if (gameCache != null) {
+            try {
+                gameCache.close(); // write out anything still waiting
+            } catch (DataAccessException e) {
+                System.err.println("failed to save games on shutdown: " + e.getMessage());
+            }
+            DatabaseManager.closePool(); // after the cache, which needs it to write
+        }
+        hasher.close();
+        if (legalMoveCache != null && ChessGame.getLegalMoveCache() == legalMoveCache) {
+            ChessGame.setLegalMoveCache(null);
+        }
     }
 }
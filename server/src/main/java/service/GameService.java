@@ -2,24 +2,37 @@ package service;
 
 import dataaccess.DataAccess;
 import dataaccess.DataAccessException;
+import dataaccess.GameChangedException;
+import dataaccess.GameQuery;
 import model.AuthData;
 import model.GameData;
+import model.GameSummary;
 import exception.AlreadyTakenException;
 import exception.BadRequestException;
 import exception.UnauthorizedException;
 import chess.ChessGame;
+import chess.ChessMove;
+import chess.InvalidMoveException;
 
 import java.util.Collection;
+import java.util.List;
 import java.util.Locale;
 import java.util.stream.Collectors;
 
 public class GameService {
+    // Listings come back a page at a time; follow nextCursor for the rest
+    public static final int DEFAULT_PAGE_SIZE = 100;
+    public static final int MAX_PAGE_SIZE = 500;
+
     private final DataAccess dataAccess;
 
     public record GameInfo(int gameID, String whiteUsername, String blackUsername, String gameName) {}
     public record CreateGameRequest(String gameName) {}
     public record CreateGameResult(int gameID) {}
-    public record ListGamesResult(Collection<GameInfo> games) {}
+    // cursor is the nextCursor of the previous page; everything else is optional
+    public record ListGamesRequest(Integer cursor, Integer limit, boolean openSeat, String player, String namePrefix) {}
+    // nextCursor is null on the last page
+    public record ListGamesResult(Collection<GameInfo> games, Integer nextCursor) {}
     public record JoinGameRequest(String playerColor, Integer gameID) {}
 
     public GameService(DataAccess dataAccess) {
@@ -41,6 +54,10 @@ public class GameService {
         return value == null || value.isEmpty();
     }
 
+    private String emptyToNull(String value) {
+        return isEmpty(value) ? null : value;
+    }
+
     public CreateGameResult createGame(String authToken, CreateGameRequest req)
             throws UnauthorizedException, BadRequestException, DataAccessException {
         authorize(authToken);
@@ -56,15 +73,43 @@ public class GameService {
         return new CreateGameResult(newGame.gameID());
     }
 
-    public ListGamesResult listGames(String authToken)
-            throws UnauthorizedException, DataAccessException {
+    /**
+     * One page of games, at most MAX_PAGE_SIZE long. The page is read into memory, so the
+     * database connection is already back in the pool by the time the caller writes it out.
+     */
+    public ListGamesResult listGames(String authToken, ListGamesRequest req)
+            throws UnauthorizedException, BadRequestException, DataAccessException {
         authorize(authToken);
+        return listPage(toQuery(req));
+    }
+
+    private GameQuery toQuery(ListGamesRequest req) throws BadRequestException {
+        int cursor = req.cursor() == null ? 0 : req.cursor();
+        int limit = req.limit() == null ? DEFAULT_PAGE_SIZE : req.limit();
+        if (cursor < 0 || limit < 1) {
+            throw new BadRequestException("bad request: invalid cursor or limit");
+        }
+        limit = Math.min(limit, MAX_PAGE_SIZE);
+
+        return new GameQuery(cursor, limit + 1,
+                req.openSeat(), emptyToNull(req.player()), emptyToNull(req.namePrefix()));
+    }
 
-        Collection<GameInfo> gameInfoList = dataAccess.listGames().stream()
+    // The query asks for one game more than the page holds, to find out whether there's another page
+    private ListGamesResult listPage(GameQuery query) throws DataAccessException {
+        int limit = query.limit() - 1;
+        List<GameSummary> page = dataAccess.listGameSummaries(query);
+        Integer nextCursor = null;
+        if (page.size() > limit) {
+            page = page.subList(0, limit);
+            nextCursor = page.get(limit - 1).gameID();
+        }
+
+        Collection<GameInfo> gameInfoList = page.stream()
                 .map(g -> new GameInfo(g.gameID(), g.whiteUsername(), g.blackUsername(), g.gameName()))
                 .collect(Collectors.toList());
 
-        return new ListGamesResult(gameInfoList);
+        return new ListGamesResult(gameInfoList, nextCursor);
     }
 
     public void joinGame(String authToken, JoinGameRequest req)
@@ -111,6 +156,43 @@ public class GameService {
         dataAccess.updateGame(updated);
     }
 
+    /**
+     * Plays a move for whoever's turn it is, if that's the caller.
+     *
+     * @return the game after the move
+     */
+    public GameData makeMove(String authToken, int gameID, ChessMove move)
+            throws UnauthorizedException, BadRequestException, DataAccessException {
+        String username = authorize(authToken).username();
+
+        GameData game = dataAccess.getGame(gameID);
+        if (game == null || game.game() == null) {
+            throw new BadRequestException("bad request: game not found");
+        }
+        ChessGame chess = game.game();
+        ChessGame.TeamColor turn = chess.getTeamTurn();
+        String player = turn == ChessGame.TeamColor.WHITE ? game.whiteUsername() : game.blackUsername();
+        if (!username.equals(player)) {
+            throw new UnauthorizedException("unauthorized: not your turn");
+        }
+        if (chess.isInCheckmate(turn) || chess.isInStalemate(turn)) {
+            throw new BadRequestException("bad request: game is over");
+        }
+
+        try {
+            chess.makeMove(move);
+        } catch (InvalidMoveException e) {
+            throw new BadRequestException("bad request: " + e.getMessage());
+        }
+        try {
+            dataAccess.recordMove(game, move);
+        } catch (GameChangedException e) {
+            // Someone else's move landed first, and this one was checked against the board before it
+            throw new BadRequestException("bad request: the game has changed, reload it and try again");
+        }
+        return game;
+    }
+
     private boolean takenByOther(String currentUser, String username) {
         return !isEmpty(currentUser) && !currentUser.equals(username);
     }
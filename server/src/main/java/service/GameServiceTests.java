@@ -40,11 +40,40 @@ public class GameServiceTests {
 
     @Test
     public void testListGamesEmpty() throws Exception {
-        var list = gameService.listGames(token);
+        var list = gameService.listGames(token, new GameService.ListGamesRequest(null, null, false, null, null));
         assertNotNull(list);
         assertTrue(list.games().isEmpty());
     }
 
+    @Test
+    public void testListGamesPagesAndFilters() throws Exception {
+        for (String name : new String[]{"Alpha", "Beta", "Alpine", "Gamma", "Alps"}) {
+            gameService.createGame(token, new GameService.CreateGameRequest(name));
+        }
+
+        var first = gameService.listGames(token, new GameService.ListGamesRequest(null, 2, false, null, "Al"));
+        assertEquals(2, first.games().size());
+        assertNotNull(first.nextCursor());
+
+        var second = gameService.listGames(token,
+                new GameService.ListGamesRequest(first.nextCursor(), 2, false, null, "Al"));
+        assertEquals(1, second.games().size());
+        assertNull(second.nextCursor());
+        assertEquals("Alps", second.games().iterator().next().gameName());
+    }
+
+    @Test
+    public void testListGamesUnauthorized() {
+        var req = new GameService.ListGamesRequest(null, null, false, null, null);
+        assertThrows(UnauthorizedException.class, () -> gameService.listGames("bad", req));
+    }
+
+    @Test
+    public void testListGamesBadLimit() {
+        var req = new GameService.ListGamesRequest(null, 0, false, null, null);
+        assertThrows(BadRequestException.class, () -> gameService.listGames(token, req));
+    }
+
     @Test
     public void testJoinGameAsWhite() throws Exception {
         var create = gameService.createGame(token, new GameService.CreateGameRequest("Joinable"));
@@ -71,4 +100,34 @@ public class GameServiceTests {
         assertThrows(AlreadyTakenException.class, () -> gameService.joinGame(auth2.authToken(), join2));
     }
 
+    @Test
+    public void testMakeMoveSuccess() throws Exception {
+        var create = gameService.createGame(token, new GameService.CreateGameRequest("MoveGame"));
+        gameService.joinGame(token, new GameService.JoinGameRequest("WHITE", create.gameID()));
+
+        var move = new chess.ChessMove(new chess.ChessPosition(2, 5), new chess.ChessPosition(4, 5), null);
+        gameService.makeMove(token, create.gameID(), move);
+
+        var game = dao.getGame(create.gameID()).game();
+        assertEquals(chess.ChessGame.TeamColor.BLACK, game.getTeamTurn());
+        assertNotNull(game.getBoard().getPiece(new chess.ChessPosition(4, 5)));
+    }
+
+    @Test
+    public void testMakeMoveNotYourTurn() throws Exception {
+        var create = gameService.createGame(token, new GameService.CreateGameRequest("TurnGame"));
+        gameService.joinGame(token, new GameService.JoinGameRequest("BLACK", create.gameID()));
+
+        var move = new chess.ChessMove(new chess.ChessPosition(2, 5), new chess.ChessPosition(4, 5), null);
+        assertThrows(UnauthorizedException.class, () -> gameService.makeMove(token, create.gameID(), move));
+    }
+
+    @Test
+    public void testMakeMoveIllegal() throws Exception {
+        var create = gameService.createGame(token, new GameService.CreateGameRequest("IllegalGame"));
+        gameService.joinGame(token, new GameService.JoinGameRequest("WHITE", create.gameID()));
+
+        var move = new chess.ChessMove(new chess.ChessPosition(2, 5), new chess.ChessPosition(5, 5), null);
+        assertThrows(BadRequestException.class, () -> gameService.makeMove(token, create.gameID(), move));
+    }
 }
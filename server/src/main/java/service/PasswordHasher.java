@@ -0,0 +1,227 @@
+package service;
+
+import exception.ServiceUnavailableException;
+import org.mindrot.jbcrypt.BCrypt;
+
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Future;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.SynchronousQueue;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Hashes and checks passwords with BCrypt on its own small thread pool.
+ * <p>
+ * BCrypt is meant to be slow, so a burst of registrations or logins could otherwise tie up
+ * every web server thread and stall requests that don't touch passwords at all. Here at most
+ * threads hashes run at once and at most queueCapacity more wait their turn. Past that, or if
+ * a caller has waited maxWaitMillis, the request fails straight away with a 503 instead of
+ * piling up behind the others.
+ * <p>
+ * logRounds is BCrypt's cost factor: each step up doubles the time a hash takes. It's stored
+ * in each hash, so a hash made at another cost still verifies; {@link #needsRehash(String)}
+ * tells UserService to replace one made at another cost the next time that user logs in, so
+ * raising the cost strengthens old hashes and lowering it (say, to cut login latency) brings
+ * them back down. Stronger hashes are only made cheaper once they're more than
+ * {@link #DOWNGRADE_MARGIN} round above the cost, so a restart that calibrates one step lower
+ * doesn't churn everyone's hash. {@link Config#forLatencyBudget(long)} picks the cost from
+ * how fast this machine hashes, never below {@link #MIN_CALIBRATED_LOG_ROUNDS}, so each
+ * deployment can trade login latency for hash strength without resetting passwords.
+ */
+public class PasswordHasher implements AutoCloseable {
+
+    /**
+     * @param threads       hashes that can run at once
+     * @param queueCapacity hashes that can wait for a thread before new ones are turned away
+     * @param logRounds     BCrypt cost factor, 4 to 31
+     * @param maxWaitMillis longest a caller waits for its result, queueing included
+     */
+    public record Config(int threads, int queueCapacity, int logRounds, long maxWaitMillis) {
+        public Config {
+            if (threads < 1 || queueCapacity < 0 || maxWaitMillis < 1) {
+                throw new IllegalArgumentException("hasher settings must be positive");
+            }
+            if (logRounds < MIN_LOG_ROUNDS || logRounds > MAX_LOG_ROUNDS) {
+                throw new IllegalArgumentException("logRounds must be between 4 and 31");
+            }
+        }
+
+        public static Config defaults() {
+            int cores = Runtime.getRuntime().availableProcessors();
+            return new Config(cores, cores * 16, 10, 5_000);
+        }
+
+        /**
+         * The defaults, but with the highest cost whose hash takes at most budgetMillis here
+         */
+        public static Config forLatencyBudget(long budgetMillis) {
+            Config defaults = defaults();
+            return new Config(defaults.threads(), defaults.queueCapacity(), calibrate(budgetMillis),
+                    defaults.maxWaitMillis());
+        }
+    }
+
+    private static final int MIN_LOG_ROUNDS = 4;
+    private static final int MAX_LOG_ROUNDS = 31;
+    /**
+     * The lowest cost calibrate picks however fast the machine (or a lucky timing) is;
+     * anything cheaper is too quick to brute force
+     */
+    public static final int MIN_CALIBRATED_LOG_ROUNDS = 10;
+    // Timed at this cost and scaled, since each step doubles the work; high enough to swamp
+    // setup overhead, low enough to be quick at startup
+    private static final int CALIBRATION_LOG_ROUNDS = 8;
+    /**
+     * How many rounds above the configured cost a hash may be before it's rehashed down to it
+     */
+    public static final int DOWNGRADE_MARGIN = 1;
+
+    public record Stats(int running, int queued, long hashes, long verifies, long rejected) {
+    }
+
+    private static final class Shared {
+        static final PasswordHasher INSTANCE = new PasswordHasher(Config.defaults());
+    }
+
+    private final Config config;
+    private final ThreadPoolExecutor pool;
+
+    private final LongAdder hashes = new LongAdder();
+    private final LongAdder verifies = new LongAdder();
+    private final LongAdder rejected = new LongAdder();
+
+    public PasswordHasher(Config config) {
+        this.config = config;
+        AtomicInteger threadNumber = new AtomicInteger();
+        pool = new ThreadPoolExecutor(config.threads(), config.threads(), 0, TimeUnit.MILLISECONDS,
+                // SynchronousQueue when there's no room to wait, since ArrayBlockingQueue needs at least 1
+                config.queueCapacity() == 0 ? new SynchronousQueue<>()
+                        : new ArrayBlockingQueue<>(config.queueCapacity()),
+                r -> {
+                    Thread t = new Thread(r, "password-hasher-" + threadNumber.incrementAndGet());
+                    t.setDaemon(true);
+                    return t;
+                });
+    }
+
+    /**
+     * One hasher with the default settings for services that aren't given their own
+     */
+    public static PasswordHasher shared() {
+        return Shared.INSTANCE;
+    }
+
+    public Config getConfig() {
+        return config;
+    }
+
+    /**
+     * @throws ServiceUnavailableException if too many hashes are already waiting
+     */
+    public String hash(String password) throws ServiceUnavailableException {
+        hashes.increment();
+        return run(() -> BCrypt.hashpw(password, BCrypt.gensalt(config.logRounds())));
+    }
+
+    /**
+     * @return whether password matches hash; false if hash isn't a BCrypt hash at all
+     * @throws ServiceUnavailableException if too many hashes are already waiting
+     */
+    public boolean verify(String password, String hash) throws ServiceUnavailableException {
+        verifies.increment();
+        return run(() -> {
+            try {
+                return BCrypt.checkpw(password, hash);
+            } catch (IllegalArgumentException e) {
+                return false;
+            }
+        });
+    }
+
+    /**
+     * @return whether hash should be remade at the cost this hasher uses now: it was made at a
+     * lower cost, or at more than {@link #DOWNGRADE_MARGIN} round above it
+     */
+    public boolean needsRehash(String hash) {
+        int cost = costOf(hash);
+        return cost != -1 && (cost < config.logRounds() || cost > config.logRounds() + DOWNGRADE_MARGIN);
+    }
+
+    /**
+     * @return the cost a BCrypt hash ("$2a$10$...") was made with, or -1 if it isn't one
+     */
+    public static int costOf(String hash) {
+        if (hash == null || hash.length() < 7 || hash.charAt(0) != '$' || hash.charAt(6) != '$') {
+            return -1;
+        }
+        try {
+            return Integer.parseInt(hash.substring(4, 6));
+        } catch (NumberFormatException e) {
+            return -1;
+        }
+    }
+
+    /**
+     * Times a few hashes on this machine and works out the highest cost that stays within
+     * budgetMillis, never below {@link #MIN_CALIBRATED_LOG_ROUNDS}
+     */
+    public static int calibrate(long budgetMillis) {
+        String salt = BCrypt.gensalt(CALIBRATION_LOG_ROUNDS);
+        long best = Long.MAX_VALUE;
+        for (int i = 0; i < 5; i++) { // the first few are slow while the JIT warms up
+            long start = System.nanoTime();
+            BCrypt.hashpw("calibration", salt);
+            best = Math.min(best, System.nanoTime() - start);
+        }
+
+        double budgetNanos = budgetMillis * 1_000_000.0;
+        int cost = MIN_CALIBRATED_LOG_ROUNDS;
+        while (cost < MAX_LOG_ROUNDS && best * Math.pow(2, cost + 1 - CALIBRATION_LOG_ROUNDS) <= budgetNanos) {
+            cost++;
+        }
+        return cost;
+    }
+
+    public Stats getStats() {
+        return new Stats(pool.getActiveCount(), pool.getQueue().size(),
+                hashes.sum(), verifies.sum(), rejected.sum());
+    }
+
+    @Override
+    public void close() {
+        pool.shutdown();
+    }
+
+    private <T> T run(Callable<T> task) throws ServiceUnavailableException {
+        Future<T> result;
+        try {
+            result = pool.submit(task);
+        } catch (RejectedExecutionException e) {
+            rejected.increment();
+            throw new ServiceUnavailableException();
+        }
+
+        try {
+            return result.get(config.maxWaitMillis(), TimeUnit.MILLISECONDS);
+        } catch (TimeoutException e) {
+            result.cancel(true); // don't spend a thread on an answer nobody's waiting for
+            rejected.increment();
+            throw new ServiceUnavailableException();
+        } catch (InterruptedException e) {
+            result.cancel(true);
+            Thread.currentThread().interrupt();
+            throw new ServiceUnavailableException();
+        } catch (ExecutionException e) {
+            if (e.getCause() instanceof RuntimeException runtime) {
+                throw runtime;
+            }
+            throw new IllegalStateException(e.getCause());
+        }
+    }
+}
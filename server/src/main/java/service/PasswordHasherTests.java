@@ -0,0 +1,83 @@
+package service;
+
+import exception.ServiceUnavailableException;
+import org.junit.jupiter.api.*;
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+public class PasswordHasherTests {
+
+    @Test
+    public void hashUsesConfiguredCost() {
+        try (PasswordHasher hasher = new PasswordHasher(new PasswordHasher.Config(1, 4, 5, 5_000))) {
+            String hash = hasher.hash("secret");
+            assertTrue(hash.startsWith("$2a$05$"), hash);
+            assertTrue(hasher.verify("secret", hash));
+            assertFalse(hasher.verify("wrong", hash));
+        }
+    }
+
+    @Test
+    public void verifyRejectsWhatIsntAHash() {
+        try (PasswordHasher hasher = new PasswordHasher(new PasswordHasher.Config(1, 4, 4, 5_000))) {
+            assertFalse(hasher.verify("secret", "secret"));
+        }
+    }
+
+    @Test
+    public void fullQueueTurnsRequestsAway() throws Exception {
+        // One thread, nowhere to wait, and hashes slow enough that the others arrive mid-hash
+        PasswordHasher hasher = new PasswordHasher(new PasswordHasher.Config(1, 0, 14, 30_000));
+        ExecutorService callers = Executors.newFixedThreadPool(4);
+        try {
+            List<Future<String>> results = new ArrayList<>();
+            for (int i = 0; i < 4; i++) {
+                results.add(callers.submit(() -> hasher.hash("secret")));
+            }
+            int busy = 0;
+            for (Future<String> result : results) {
+                try {
+                    result.get();
+                } catch (ExecutionException e) {
+                    assertInstanceOf(ServiceUnavailableException.class, e.getCause());
+                    assertEquals(503, ((ServiceUnavailableException) e.getCause()).getStatusCode());
+                    busy++;
+                }
+            }
+            assertTrue(busy >= 1, "nothing was turned away");
+            assertEquals(busy, hasher.getStats().rejected());
+        } finally {
+            callers.shutdownNow();
+            hasher.close();
+        }
+    }
+
+    @Test
+    public void costIsReadFromHash() {
+        assertEquals(12, PasswordHasher.costOf("$2a$12$abcdefghijklmnopqrstuu"));
+        assertEquals(-1, PasswordHasher.costOf("plaintext"));
+        assertEquals(-1, PasswordHasher.costOf(null));
+        try (PasswordHasher hasher = new PasswordHasher(new PasswordHasher.Config(1, 4, 5, 5_000))) {
+            assertTrue(hasher.needsRehash("$2a$04$abcdefghijklmnopqrstuu"));
+            assertFalse(hasher.needsRehash(hasher.hash("secret")));
+            assertFalse(hasher.needsRehash("$2a$06$abcdefghijklmnopqrstuu")); // one round above is close enough
+            assertTrue(hasher.needsRehash("$2a$07$abcdefghijklmnopqrstuu"));
+            assertTrue(hasher.needsRehash("$2a$10$abcdefghijklmnopqrstuu"));
+            assertFalse(hasher.needsRehash("plaintext"));
+        }
+    }
+
+    @Test
+    public void biggerBudgetAllowsHigherCost() {
+        int tight = PasswordHasher.calibrate(0);
+        int loose = PasswordHasher.calibrate(2_000);
+        assertEquals(PasswordHasher.MIN_CALIBRATED_LOG_ROUNDS, tight);
+        assertTrue(loose > tight, "cost " + loose + " for a 2s budget");
+    }
+}
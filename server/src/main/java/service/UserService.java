@@ -6,19 +6,26 @@ import model.AuthData;
 import model.UserData;
 import exception.AlreadyTakenException;
 import exception.BadRequestException;
+import exception.ServiceUnavailableException;
 import exception.UnauthorizedException;
-import org.mindrot.jbcrypt.BCrypt;
 import java.util.UUID;
 
 public class UserService {
     private final DataAccess dataAccess;
+    // Passwords are hashed here and only here; the DAO stores whatever it's given
+    private final PasswordHasher hasher;
 
     public record RegisterRequest(String username, String password, String email) {}
     public record LoginRequest(String username, String password) {}
     public record AuthResult(String username, String authToken) {}
 
     public UserService(DataAccess dataAccess) {
+        this(dataAccess, PasswordHasher.shared());
+    }
+
+    public UserService(DataAccess dataAccess, PasswordHasher hasher) {
         this.dataAccess = dataAccess;
+        this.hasher = hasher;
     }
 
     public AuthResult register(RegisterRequest req)
@@ -29,7 +36,7 @@ public class UserService {
             throw new AlreadyTakenException("already taken");
         }
 
-        String hashedPassword = BCrypt.hashpw(req.password(), BCrypt.gensalt());
+        String hashedPassword = hasher.hash(req.password());
         dataAccess.createUser(new UserData(req.username(), hashedPassword, req.email()));
 
         String token = UUID.randomUUID().toString();
@@ -43,9 +50,12 @@ public class UserService {
         requireNonEmpty(req.username(), req.password());
 
         UserData user = dataAccess.getUser(req.username());
-        if (user == null || !BCrypt.checkpw(req.password(), user.password())) {
+        if (user == null || !hasher.verify(req.password(), user.password())) {
             throw new UnauthorizedException("unauthorized");
         }
+        if (hasher.needsRehash(user.password())) {
+            rehash(user.username(), req.password());
+        }
 
         String token = UUID.randomUUID().toString();
         dataAccess.createAuth(new AuthData(token, user.username()));
@@ -53,6 +63,16 @@ public class UserService {
         return new AuthResult(user.username(), token);
     }
 
+    // Moves a user's hash to the current cost while we have their password. Best effort: if
+    // the hasher is too busy right now, they still get logged in and it's tried next time
+    private void rehash(String username, String password) throws DataAccessException {
+        try {
+            dataAccess.updatePassword(username, hasher.hash(password));
+        } catch (ServiceUnavailableException e) {
+            // leave the old hash; it still works
+        }
+    }
+
     public void logout(String token)
             throws UnauthorizedException, DataAccessException {
         requireValidAuth(token);
@@ -62,4 +62,56 @@ public class UserServiceTests {
     public void testLogoutUnauthorized() {
         assertThrows(UnauthorizedException.class, () -> userService.logout("fakeToken"));
     }
+
+    @Test
+    public void testRegisterHashesPasswordOnce() throws Exception {
+        userService.register(new UserService.RegisterRequest("once", "secret", "o@e.com"));
+        String stored = dao.getUser("once").password();
+        assertNotEquals("secret", stored);
+        assertTrue(org.mindrot.jbcrypt.BCrypt.checkpw("secret", stored));
+    }
+
+    @Test
+    public void testLoginRehashesAtNewCost() throws Exception {
+        try (var cheap = new PasswordHasher(new PasswordHasher.Config(1, 4, 4, 5_000));
+             var dearer = new PasswordHasher(new PasswordHasher.Config(1, 4, 5, 5_000))) {
+            new UserService(dao, cheap).register(new UserService.RegisterRequest("cost", "secret", "c@e.com"));
+            assertEquals(4, PasswordHasher.costOf(dao.getUser("cost").password()));
+
+            // Upgraded on the first login after the cost changes, and still the same password
+            new UserService(dao, dearer).login(new UserService.LoginRequest("cost", "secret"));
+            assertEquals(5, PasswordHasher.costOf(dao.getUser("cost").password()));
+            assertNotNull(new UserService(dao, dearer).login(new UserService.LoginRequest("cost", "secret")));
+
+            // One round above the cost is left alone, so a slightly lower calibration doesn't churn
+            new UserService(dao, cheap).login(new UserService.LoginRequest("cost", "secret"));
+            assertEquals(5, PasswordHasher.costOf(dao.getUser("cost").password()));
+        }
+    }
+
+    @Test
+    public void testLoginRehashesDownToLowerCost() throws Exception {
+        try (var dear = new PasswordHasher(new PasswordHasher.Config(1, 4, 6, 5_000));
+             var cheap = new PasswordHasher(new PasswordHasher.Config(1, 4, 4, 5_000))) {
+            new UserService(dao, dear).register(new UserService.RegisterRequest("cost", "secret", "c@e.com"));
+            assertEquals(6, PasswordHasher.costOf(dao.getUser("cost").password()));
+
+            // Two rounds above the configured cost is past the margin, so it comes back down
+            new UserService(dao, cheap).login(new UserService.LoginRequest("cost", "secret"));
+            assertEquals(4, PasswordHasher.costOf(dao.getUser("cost").password()));
+            assertNotNull(new UserService(dao, cheap).login(new UserService.LoginRequest("cost", "secret")));
+        }
+    }
+
+    @Test
+    public void testFailedLoginDoesNotRehash() throws Exception {
+        try (var cheap = new PasswordHasher(new PasswordHasher.Config(1, 4, 4, 5_000));
+             var dearer = new PasswordHasher(new PasswordHasher.Config(1, 4, 5, 5_000))) {
+            new UserService(dao, cheap).register(new UserService.RegisterRequest("cost", "secret", "c@e.com"));
+            String before = dao.getUser("cost").password();
+            assertThrows(UnauthorizedException.class,
+                    () -> new UserService(dao, dearer).login(new UserService.LoginRequest("cost", "wrong")));
+            assertEquals(before, dao.getUser("cost").password());
+        }
+    }
 }
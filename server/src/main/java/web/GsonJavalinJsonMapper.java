@@ -7,6 +7,7 @@ import org.jetbrains.annotations.NotNull;
 import java.io.InputStream;
 import java.io.InputStreamReader;
 import java.lang.reflect.Type;
+import java.nio.charset.StandardCharsets;
 
 /**
  * Custom JSON Mapper for Javalin to correctly use Gson.
@@ -23,8 +24,13 @@ public class GsonJavalinJsonMapper implements JsonMapper {
         return gson.toJson(obj, type);
     }
 
+    @Override
+    public @NotNull <T> T fromJsonString(@NotNull String json, @NotNull Type targetType) {
+        return gson.fromJson(json, targetType);
+    }
+
     @Override
     public @NotNull <T> T fromJsonStream(@NotNull InputStream jsonStream, @NotNull Type targetType) {
-        return gson.fromJson(new InputStreamReader(jsonStream), targetType);
+        return gson.fromJson(new InputStreamReader(jsonStream, StandardCharsets.UTF_8), targetType);
     }
 }
@@ -0,0 +1,32 @@
+package web;
+
+import com.google.gson.Gson;
+import com.google.gson.GsonBuilder;
+import com.google.gson.reflect.TypeToken;
+
+import java.lang.reflect.Type;
+
+/**
+ * The one Gson the server uses for every request and response.
+ * <p>
+ * Gson is thread-safe and builds a reflective adapter the first time it sees each type, then
+ * caches it. Sharing one instance means that work happens once per type instead of once per
+ * handler, and {@link #warmUp(Type...)} does it at startup so the first requests don't pay for it.
+ */
+public final class Json {
+    public static final Gson GSON = new GsonBuilder()
+            .disableHtmlEscaping() // only ever sent as application/json
+            .create();
+
+    private Json() {
+    }
+
+    /**
+     * Builds and caches the adapters for types before any request needs them
+     */
+    public static void warmUp(Type... types) {
+        for (Type type : types) {
+            GSON.getAdapter(TypeToken.get(type));
+        }
+    }
+}
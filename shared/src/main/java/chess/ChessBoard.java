@@ -13,6 +13,17 @@ public class ChessBoard {
     private final ChessPiece[][] board;
     //creating the board
 
+    // Bitboard view of the same pieces: one long per color/type (see bitboardIndex) plus one
+    // occupancy mask per color. Bit 0 is a1 (row 1, col 1) and bit 63 is h8 (row 8, col 8).
+    // It's transient and built lazily because Gson fills in 'board' directly without addPiece.
+    // The last slot is the Zobrist key of the pieces (see Zobrist), so everything that's built
+    // lazily is in one array, and it's volatile so a thread reading a board another thread
+    // built never sees the array before it's filled in.
+    private static final int WHITE_OCCUPANCY = 12;
+    private static final int BLACK_OCCUPANCY = 13;
+    private static final int ZOBRIST_KEY = 14;
+    private transient volatile long[] bitboards;
+
 
 
     public ChessBoard(){
@@ -28,8 +39,8 @@ public class ChessBoard {
      * @param piece    the piece to add
      */
     public void addPiece(ChessPosition position, ChessPiece piece) {
-        board[position.getRow() - 1][position.getColumn() - 1] = piece;
-        //Java arrays are 0–7 so we need to subtract 1 to get board[7] which becomes our 'piece'
+        setPiece(squareIndex(position.getRow(), position.getColumn()), piece);
+        //Java arrays are 0–7 so squareIndex subtracts 1 from the row and column for us
     }
 
     /**
@@ -44,6 +55,134 @@ public class ChessBoard {
 
     }
 
+    /**
+     * @return a new board with the same pieces on it (pieces are immutable, so they're shared)
+     */
+    ChessBoard copy() {
+        ChessBoard copy = new ChessBoard();
+        copy.copyFrom(this);
+        return copy;
+    }
+
+    /**
+     * Makes this board hold the same pieces as other, reusing this board's arrays
+     */
+    void copyFrom(ChessBoard other) {
+        for (int row = 0; row < 8; row++) {
+            System.arraycopy(other.board[row], 0, board[row], 0, 8);
+        }
+        long[] bits = other.bitboards();
+        long[] mine = bitboards;
+        if (mine == null) {
+            bitboards = bits.clone();
+        } else {
+            System.arraycopy(bits, 0, mine, 0, bits.length);
+        }
+    }
+
+    // ----- Bitboard helpers (used by the move generator and ChessGame) -----
+
+    /**
+     * @return the 0-63 square index for a 1-8 row and column (a1 = 0, h1 = 7, h8 = 63)
+     */
+    static int squareIndex(int row, int col) {
+        return (row - 1) * 8 + (col - 1);
+    }
+
+    static int rowOf(int square) {
+        return (square >>> 3) + 1;
+    }
+
+    static int columnOf(int square) {
+        return (square & 7) + 1;
+    }
+
+    /**
+     * @return which of the 12 piece bitboards a piece of this color and type lives in
+     */
+    static int bitboardIndex(ChessGame.TeamColor color, ChessPiece.PieceType type) {
+        return (color == ChessGame.TeamColor.WHITE ? 0 : 6) + type.ordinal();
+    }
+
+    ChessPiece getPiece(int square) {
+        return board[square >>> 3][square & 7];
+    }
+
+    /**
+     * Puts a piece (or null to empty the square) on a square and keeps the bitboards in sync
+     */
+    void setPiece(int square, ChessPiece piece) {
+        ChessPiece[] rank = board[square >>> 3];
+        ChessPiece old = rank[square & 7];
+        rank[square & 7] = piece;
+
+        long[] bits = bitboards;
+        if (bits == null) {
+            return; // nothing built yet, bitboards() will pick this up when it's needed
+        }
+        long mask = 1L << square;
+        if (old != null) {
+            bits[bitboardIndex(old.getTeamColor(), old.getPieceType())] &= ~mask;
+            bits[occupancyIndex(old.getTeamColor())] &= ~mask;
+            bits[ZOBRIST_KEY] ^= Zobrist.pieceKey(old, square);
+        }
+        if (piece != null) {
+            bits[bitboardIndex(piece.getTeamColor(), piece.getPieceType())] |= mask;
+            bits[occupancyIndex(piece.getTeamColor())] |= mask;
+            bits[ZOBRIST_KEY] ^= Zobrist.pieceKey(piece, square);
+        }
+    }
+
+    /**
+     * @return a bitboard of every square holding a piece of this color and type
+     */
+    long pieces(ChessGame.TeamColor color, ChessPiece.PieceType type) {
+        return bitboards()[bitboardIndex(color, type)];
+    }
+
+    /**
+     * @return a bitboard of every square holding a piece of this color
+     */
+    long occupancy(ChessGame.TeamColor color) {
+        return bitboards()[occupancyIndex(color)];
+    }
+
+    /**
+     * @return a bitboard of every occupied square
+     */
+    long occupancy() {
+        long[] bits = bitboards();
+        return bits[WHITE_OCCUPANCY] | bits[BLACK_OCCUPANCY];
+    }
+
+    /**
+     * @return the Zobrist key of the pieces on the board (not including whose turn it is)
+     */
+    long zobristKey() {
+        return bitboards()[ZOBRIST_KEY];
+    }
+
+    private static int occupancyIndex(ChessGame.TeamColor color) {
+        return color == ChessGame.TeamColor.WHITE ? WHITE_OCCUPANCY : BLACK_OCCUPANCY;
+    }
+
+    private long[] bitboards() {
+        long[] bits = bitboards;
+        if (bits == null) {
+            bits = new long[15];
+            for (int square = 0; square < 64; square++) {
+                ChessPiece piece = getPiece(square);
+                if (piece != null) {
+                    bits[bitboardIndex(piece.getTeamColor(), piece.getPieceType())] |= 1L << square;
+                    bits[occupancyIndex(piece.getTeamColor())] |= 1L << square;
+                    bits[ZOBRIST_KEY] ^= Zobrist.pieceKey(piece, square);
+                }
+            }
+            bitboards = bits; // published only once it's complete
+        }
+        return bits;
+    }
+
     /**
      * Sets the board to the default starting board
      * (How the game of chess normally starts)
@@ -56,11 +195,12 @@ public class ChessBoard {
                 board[row][col] = null;
             }
         }
+        bitboards = null;
 
         // Place pawns in the front rows of each players side (2 and 7) black and white
         for (int col = 1; col <= 8; col++) {
-            addPiece(new ChessPosition(2, col), new ChessPiece(ChessGame.TeamColor.WHITE, ChessPiece.PieceType.PAWN));
-            addPiece(new ChessPosition(7, col), new ChessPiece(ChessGame.TeamColor.BLACK, ChessPiece.PieceType.PAWN));
+            addPiece(ChessPosition.of(2, col), ChessPiece.of(ChessGame.TeamColor.WHITE, ChessPiece.PieceType.PAWN));
+            addPiece(ChessPosition.of(7, col), ChessPiece.of(ChessGame.TeamColor.BLACK, ChessPiece.PieceType.PAWN));
         }
 
         // Order of back-row pieces
@@ -77,8 +217,8 @@ public class ChessBoard {
 
         // Place back-row pieces in row 1 and 8 black and white
         for (int col = 1; col <= 8; col++) {
-            addPiece(new ChessPosition(1, col), new ChessPiece(ChessGame.TeamColor.WHITE, backRow[col - 1]));
-            addPiece(new ChessPosition(8, col), new ChessPiece(ChessGame.TeamColor.BLACK, backRow[col - 1]));
+            addPiece(ChessPosition.of(1, col), ChessPiece.of(ChessGame.TeamColor.WHITE, backRow[col - 1]));
+            addPiece(ChessPosition.of(8, col), ChessPiece.of(ChessGame.TeamColor.BLACK, backRow[col - 1]));
         }
 
     }
@@ -93,7 +233,8 @@ public class ChessBoard {
 
     @Override
     public int hashCode() {
-        return Arrays.deepHashCode(board);
+        // Equal boards hold the same pieces, so they always get the same Zobrist key
+        return Long.hashCode(zobristKey());
     }
 
     @Override
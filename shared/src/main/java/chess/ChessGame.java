@@ -4,13 +4,39 @@ import java.util.*;
 import java.util.Objects;
 
 public class ChessGame {
+    // Shared by every game so watchers of the same position reuse each other's work; off until set
+    private static volatile LegalMoveCache legalMoveCache;
+
     private ChessBoard board;
     private TeamColor teamTurn;
+    // Moves played so far by both sides. Storage uses it as the game's version, so a move made
+    // on a game that's had another move since it was read can be told apart and turned away.
+    private int movesPlayed;
+    // Moves made with applyMove, so undoMove can take them back in place. Only a search
+    // (Perft) makes moves it means to take back, so a game that's just being played never
+    // creates one. Not serialized.
+    private transient UndoStack history;
+    // Where each king is (square index, -1 if there isn't one), indexed by TeamColor ordinal.
+    // Kept up to date by applyMove/undoMove and recomputed by setBoard.
+    private final transient int[] kingSquares = new int[2];
+    // Legality is checked on a per-thread copy of the board, never on this game's own, so
+    // validMoves, isInCheckmate and isInStalemate don't change anything and can be called on
+    // one game from several threads at once
+    private static final ThreadLocal<Scratch> SCRATCH = ThreadLocal.withInitial(Scratch::new);
 
     public ChessGame() {
         this.board = new ChessBoard();
         this.board.resetBoard();
         this.teamTurn = TeamColor.WHITE;
+        trackKings();
+    }
+
+    // For decoders that build the board themselves, so it isn't reset first for nothing
+    ChessGame(ChessBoard board, TeamColor teamTurn, int movesPlayed) {
+        this.board = board;
+        this.teamTurn = teamTurn;
+        this.movesPlayed = movesPlayed;
+        trackKings();
     }
 
     public TeamColor getTeamTurn() {
@@ -21,6 +47,13 @@ public class ChessGame {
         this.teamTurn = team;
     }
 
+    /**
+     * @return how many moves have been made on this game, counting both sides' moves
+     */
+    public int getMovesPlayed() {
+        return movesPlayed;
+    }
+
     @Override
     public String toString() {
         return "ChessGame{" + "board=" + board + ", teamTurn=" + teamTurn + '}';
@@ -36,30 +69,111 @@ public class ChessGame {
 
     @Override
     public int hashCode() {
-        return Objects.hash(board, teamTurn);
+        return Long.hashCode(getZobristKey());
+    }
+
+    /**
+     * Gets a 64-bit Zobrist hash of the position: the pieces on the board and whose turn it is.
+     * The board keeps it up to date as pieces move, so this is O(1), which makes it cheap to
+     * use as a cache key or for spotting repeated positions.
+     */
+    public long getZobristKey() {
+        long key = board == null ? 0 : board.zobristKey();
+        return teamTurn == TeamColor.BLACK ? key ^ Zobrist.SIDE_TO_MOVE : key;
     }
 
     public enum TeamColor { WHITE, BLACK }
 
+    /**
+     * Turns on caching of validMoves results for every game in this JVM, or turns it off
+     * when given null
+     */
+    public static void setLegalMoveCache(LegalMoveCache cache) {
+        legalMoveCache = cache;
+    }
+
+    public static LegalMoveCache getLegalMoveCache() {
+        return legalMoveCache;
+    }
+
     public Collection<ChessMove> validMoves(ChessPosition startPosition) {
-        if (startPosition == null){
+        MoveList legal = new MoveList();
+        if (!validMoves(startPosition, legal)) {
             return null;
         }
-        ChessPiece piece = board.getPiece(startPosition);
+
+        Collection<ChessMove> legalMoves = new ArrayList<>(legal.size());
+        for (int i = 0; i < legal.size(); i++) {
+            legalMoves.add(MoveList.toChessMove(legal.get(i)));
+        }
+        return legalMoves;
+    }
+
+    /**
+     * Same as validMoves above, but appends the legal moves to a reusable list as packed ints
+     * (see MoveList) so nothing gets allocated.
+     *
+     * @return false if there is no piece at the start position
+     */
+    public boolean validMoves(ChessPosition startPosition, MoveList moves) {
+        if (startPosition == null){
+            return false;
+        }
+        int from = ChessBoard.squareIndex(startPosition.getRow(), startPosition.getColumn());
+        ChessPiece piece = board.getPiece(from);
         if (piece == null){
-            return null;
+            return false;
+        }
+
+        addValidMoves(from, piece, moves, null);
+        return true;
+    }
+
+    /**
+     * Appends every legal move for the team whose turn it is, copying the board once
+     * rather than once per piece
+     */
+    void allValidMoves(MoveList moves) {
+        Scratch scratch = null;
+        long pieces = board.occupancy(teamTurn);
+        while (pieces != 0) {
+            int square = Long.numberOfTrailingZeros(pieces);
+            pieces &= pieces - 1;
+            scratch = addValidMoves(square, board.getPiece(square), moves, scratch);
         }
+    }
 
-        Collection<ChessMove> pieceMoves = piece.pieceMoves(board, startPosition);
-        Collection<ChessMove> legalMoves = new ArrayList<>();
+    // scratch is null until this game's board has been copied into it, which the cache can
+    // save us from having to do at all. Returns it, loaded, if it was needed.
+    private Scratch addValidMoves(int from, ChessPiece piece, MoveList moves, Scratch scratch) {
+        LegalMoveCache cache = legalMoveCache;
+        long key = 0;
+        if (cache != null) {
+            key = getZobristKey();
+            if (cache.get(key, from, moves)) {
+                return scratch;
+            }
+        }
+        if (scratch == null) {
+            scratch = Scratch.of(board);
+        }
 
-        for (ChessMove move : pieceMoves) {
-            if (isMoveLegal(move, piece)) {
-                legalMoves.add(move);
+        // Generate straight into the caller's list, then squeeze out the illegal ones in place
+        int first = moves.size();
+        MoveGenerator.addMoves(board, from, piece, moves);
+        int kept = first;
+        for (int i = first; i < moves.size(); i++) {
+            int move = moves.get(i);
+            if (scratch.isLegal(move, piece.getTeamColor())) {
+                moves.set(kept++, move);
             }
         }
+        moves.truncate(kept);
 
-        return legalMoves;
+        if (cache != null) {
+            cache.put(key, from, moves, first, kept);
+        }
+        return scratch;
     }
 
 
@@ -69,7 +183,6 @@ public class ChessGame {
         }
 
         ChessPosition start = move.getStartPosition();
-        ChessPosition end = move.getEndPosition();
         ChessPiece piece = board.getPiece(start);
         if (piece == null){
             throw new InvalidMoveException("No piece at start position.");
@@ -79,52 +192,91 @@ public class ChessGame {
 
         }
 
-        Collection<ChessMove> legal = validMoves(start);
-        if (legal == null || !legal.contains(move)) {
+        MoveList legal = SCRATCH.get().moves;
+        legal.clear();
+        int packed = MoveList.pack(move);
+        if (!validMoves(start, legal) || !legal.contains(packed)) {
             throw new InvalidMoveException("Move is not legal for this piece.");
         }
 
-        ChessPiece movingPiece = board.getPiece(start);
-        board.addPiece(end, movingPiece);
-        board.addPiece(start, null);
+        play(packed);
+    }
 
-        if (move.getPromotionPiece() != null && movingPiece != null) {
-            board.addPiece(end, new ChessPiece(movingPiece.getTeamColor(), move.getPromotionPiece()));
+    /**
+     * Plays a move, packed as in MoveList, without checking that it's legal. For moves that
+     * were checked when they were first made, like ones read back from storage.
+     *
+     * @throws InvalidMoveException if there's no piece on the start square
+     */
+    public void replayMove(int move) throws InvalidMoveException {
+        if (board.getPiece(MoveList.from(move)) == null) {
+            throw new InvalidMoveException("No piece at start position.");
         }
+        play(move);
+    }
+
+    /**
+     * Plays a move on the board without checking it, remembering what it changed so
+     * undoMove() can put everything back. Also passes the turn to the other team.
+     */
+    void applyMove(int move) {
+        if (history == null) {
+            history = new UndoStack();
+        }
+        int from = MoveList.from(move);
+        int to = MoveList.to(move);
+        history.push(from, to, board.getPiece(from), board.getPiece(to));
+        play(move);
+    }
+
+    // Plays a move for good: nothing is kept to take it back with
+    private void play(int move) {
+        int from = MoveList.from(move);
+        int to = MoveList.to(move);
+        ChessPiece.PieceType promotion = MoveList.promotion(move);
+
+        ChessPiece movingPiece = board.getPiece(from);
+        ChessPiece placed = movingPiece;
+        if (promotion != null && movingPiece != null) {
+            placed = ChessPiece.of(movingPiece.getTeamColor(), promotion);
+        }
+        board.setPiece(from, null);
+        board.setPiece(to, placed);
+        if (movingPiece != null && movingPiece.getPieceType() == ChessPiece.PieceType.KING) {
+            kingSquares[movingPiece.getTeamColor().ordinal()] = to;
+        }
+
+        teamTurn = (teamTurn == TeamColor.WHITE) ? TeamColor.BLACK : TeamColor.WHITE;
+        movesPlayed++;
+    }
+
+    /**
+     * Takes back the last move made with applyMove. Moves made with makeMove are for good.
+     */
+    void undoMove() {
+        if (history == null || history.isEmpty()) {
+            throw new IllegalStateException("No move to undo");
+        }
+        ChessPiece moved = history.lastMoved();
+        board.setPiece(history.lastFrom(), moved);
+        board.setPiece(history.lastTo(), history.lastCaptured());
+        if (moved != null && moved.getPieceType() == ChessPiece.PieceType.KING) {
+            kingSquares[moved.getTeamColor().ordinal()] = history.lastFrom();
+        }
+        history.pop();
 
         teamTurn = (teamTurn == TeamColor.WHITE) ? TeamColor.BLACK : TeamColor.WHITE;
+        movesPlayed--;
     }
 
     public boolean isInCheck(TeamColor teamColor) {
-        ChessPosition kingPos = findKing(teamColor);
-        if (kingPos == null){
+        int kingSquare = kingSquare(teamColor);
+        if (kingSquare < 0){
             return false;
         }
 
         TeamColor opponent = (teamColor == TeamColor.WHITE) ? TeamColor.BLACK : TeamColor.WHITE;
-        return isAttackedByOpponent(kingPos, opponent);
-    }
-    private boolean isAttackedByOpponent(ChessPosition kingPos, TeamColor opponent) {
-        for (int r = 1; r <= 8; r++) {
-            for (int c = 1; c <= 8; c++) {
-                ChessPosition pos = new ChessPosition(r, c);
-                ChessPiece piece = board.getPiece(pos);
-                if (piece != null && piece.getTeamColor() == opponent) {
-                    if (canAttackKing(piece, pos, kingPos)){
-                        return true;
-                    }
-                }
-            }
-        }
-        return false;
-    }
-    private boolean canAttackKing(ChessPiece piece, ChessPosition from, ChessPosition kingPos) {
-        for (ChessMove move : piece.pieceMoves(board, from)) {
-            if (move.getEndPosition().equals(kingPos)){
-                return true;
-            }
-        }
-        return false;
+        return MoveGenerator.isSquareAttacked(board, kingSquare, opponent);
     }
 
 
@@ -144,6 +296,8 @@ public class ChessGame {
 
     public void setBoard(ChessBoard board) {
         this.board = board;
+        history = null;
+        trackKings();
     }
 
     public ChessBoard getBoard() {
@@ -151,63 +305,87 @@ public class ChessGame {
     }
 
     // --- Helpers ---
-    private ChessPosition findKing(TeamColor teamColor) {
-        for (int r = 1; r <= 8; r++) {
-            for (int c = 1; c <= 8; c++) {
-                ChessPosition p = new ChessPosition(r, c);
-                ChessPiece cp = board.getPiece(p);
-                if (cp != null && cp.getTeamColor() == teamColor &&
-                        cp.getPieceType() == ChessPiece.PieceType.KING) {
-                    return p;
-                }
-            }
+    private void trackKings() {
+        for (TeamColor color : TeamColor.values()) {
+            long kings = board == null ? 0 : board.pieces(color, ChessPiece.PieceType.KING);
+            kingSquares[color.ordinal()] = kings == 0 ? -1 : Long.numberOfTrailingZeros(kings);
         }
-        return null;
     }
 
-    private boolean hasAnyLegalMove(TeamColor teamColor) {
-        for (int r = 1; r <= 8; r++) {
-            for (int c = 1; c <= 8; c++) {
-                ChessPosition pos = new ChessPosition(r, c);
-                ChessPiece cp = board.getPiece(pos);
-                if (cp != null && cp.getTeamColor() == teamColor) {
-                    Collection<ChessMove> legal = validMoves(pos);
-                    if (legal != null && !legal.isEmpty()){
-                        return true;
-                    }
-                }
+    // The tracked square, double-checked against the board in case the board was
+    // changed through getBoard() (or filled in by Gson) behind the game's back
+    private int kingSquare(TeamColor teamColor) {
+        int square = kingSquares[teamColor.ordinal()];
+        if (square >= 0) {
+            ChessPiece piece = board.getPiece(square);
+            if (piece != null && piece.getTeamColor() == teamColor
+                    && piece.getPieceType() == ChessPiece.PieceType.KING) {
+                return square;
             }
         }
-        return false;
+        trackKings();
+        return kingSquares[teamColor.ordinal()];
     }
 
-    private ChessBoard deepCopyBoard(ChessBoard src) {
-        ChessBoard copy = new ChessBoard();
-        for (int r = 1; r <= 8; r++) {
-            for (int c = 1; c <= 8; c++) {
-                ChessPosition p = new ChessPosition(r, c);
-                ChessPiece cp = src.getPiece(p);
-                if (cp != null) {
-                    copy.addPiece(p, new ChessPiece(cp.getTeamColor(), cp.getPieceType()));
+    // Stops at the first legal move it finds rather than building every piece's full list
+    private boolean hasAnyLegalMove(TeamColor teamColor) {
+        Scratch scratch = Scratch.of(board);
+        MoveList moves = scratch.moves;
+        long pieces = board.occupancy(teamColor);
+        while (pieces != 0) {
+            int square = Long.numberOfTrailingZeros(pieces);
+            pieces &= pieces - 1;
+            moves.clear();
+            MoveGenerator.addMoves(board, square, board.getPiece(square), moves);
+            for (int i = 0; i < moves.size(); i++) {
+                if (scratch.isLegal(moves.get(i), teamColor)) {
+                    return true;
                 }
             }
         }
-        return copy;
+        return false;
     }
-    private boolean isMoveLegal(ChessMove move, ChessPiece piece) {
-        ChessBoard copyBoard = deepCopyBoard(board);
-        ChessPiece movingPiece = copyBoard.getPiece(move.getStartPosition());
-        copyBoard.addPiece(move.getEndPosition(), movingPiece);
-        copyBoard.addPiece(move.getStartPosition(), null);
 
-        if (move.getPromotionPiece() != null && movingPiece != null) {
-            copyBoard.addPiece(move.getEndPosition(),
-                    new ChessPiece(movingPiece.getTeamColor(), move.getPromotionPiece()));
+    /**
+     * One thread's working copy of a board, for trying moves and taking them back without
+     * touching the game they came from. Reused, so legality checks don't allocate.
+     */
+    private static final class Scratch {
+        final ChessBoard board = new ChessBoard();
+        final UndoStack undo = new UndoStack();
+        final MoveList moves = new MoveList();
+
+        static Scratch of(ChessBoard position) {
+            Scratch scratch = SCRATCH.get();
+            scratch.board.copyFrom(position);
+            return scratch;
         }
 
-        ChessGame testGame = new ChessGame();
-        testGame.setBoard(copyBoard);
-        return !testGame.isInCheck(piece.getTeamColor());
+        // Plays the move, sees whether it leaves the mover's king attacked, and takes it back
+        boolean isLegal(int move, TeamColor mover) {
+            int from = MoveList.from(move);
+            int to = MoveList.to(move);
+            ChessPiece.PieceType promotion = MoveList.promotion(move);
+            ChessPiece moving = board.getPiece(from);
+            undo.push(from, to, moving, board.getPiece(to));
+
+            ChessPiece placed = moving;
+            if (promotion != null && moving != null) {
+                placed = ChessPiece.of(moving.getTeamColor(), promotion);
+            }
+            board.setPiece(from, null);
+            board.setPiece(to, placed);
+
+            long kings = board.pieces(mover, ChessPiece.PieceType.KING);
+            TeamColor opponent = (mover == TeamColor.WHITE) ? TeamColor.BLACK : TeamColor.WHITE;
+            boolean legal = kings == 0
+                    || !MoveGenerator.isSquareAttacked(board, Long.numberOfTrailingZeros(kings), opponent);
+
+            board.setPiece(undo.lastTo(), undo.lastCaptured());
+            board.setPiece(undo.lastFrom(), undo.lastMoved());
+            undo.pop();
+            return legal;
+        }
     }
 
 }
@@ -1,5 +1,4 @@
 package chess;
-import java.util.Objects;
 
 
 /**
@@ -14,6 +13,15 @@ public class ChessPosition {
     //Rows and columns are 1-8 where column 1 is left and row 1 is bottom.
     // This sets up our row and column variable that will eventually be returned
 
+    // One shared instance per square, indexed the same way as ChessBoard.squareIndex
+    private static final ChessPosition[] SQUARES = new ChessPosition[64];
+
+    static {
+        for (int square = 0; square < 64; square++) {
+            SQUARES[square] = new ChessPosition((square >>> 3) + 1, (square & 7) + 1);
+        }
+    }
+
     public ChessPosition(int row, int col) {
         //Make sure the row and col passed in fit the board format
         if (row<1 || col<1) {
@@ -26,6 +34,26 @@ public class ChessPosition {
         this.column = col;
     }
 
+    /**
+     * Gets the shared position for a square instead of making a new one.
+     * Positions can't change, so handing out the same object is safe.
+     *
+     * @throws IllegalArgumentException if the row or column is off the board
+     */
+    public static ChessPosition of(int row, int col) {
+        if (row < 1 || row > 8 || col < 1 || col > 8) {
+            return new ChessPosition(row, col); // the constructor throws the right error
+        }
+        return SQUARES[(row - 1) * 8 + (col - 1)];
+    }
+
+    /**
+     * @return the shared position for a 0-63 square index
+     */
+    static ChessPosition ofSquare(int square) {
+        return SQUARES[square];
+    }
+
     /**
      * @return which row this position is in
      * 1 codes for the bottom row
@@ -53,7 +81,7 @@ public class ChessPosition {
 
     @Override
     public int hashCode() {
-        return Objects.hash(row, column);
+        return 31 * row + column;
     }
 
 
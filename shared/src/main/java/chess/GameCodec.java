@@ -0,0 +1,104 @@
+package chess;
+
+/**
+ * A compact binary form of a ChessGame for storage, much smaller and faster to read and
+ * write than Gson's dump of the whole 8x8 piece array.
+ * <p>
+ * Layout (at most 29 bytes for a full board):
+ * <pre>
+ *   byte 0      format version in bits 1-7, bit 0 set if it's black's turn
+ *   bytes 1-8   occupied squares as a big-endian bitboard (bit 0 = a1, bit 63 = h8)
+ *   bytes 9-12  how many moves have been played, big-endian
+ *   bytes 13+   one 4-bit piece code per occupied square, lowest square first, two per byte
+ *               (high nibble first); the code is the piece's bitboard index, 0-5 white, 6-11 black
+ * </pre>
+ * The game only tracks the board, whose turn it is and how many moves it's had, so that's
+ * all there is to store. Version 1 had no move count; those decode as having had none.
+ */
+public final class GameCodec {
+    static final int VERSION = 2;
+    private static final int VERSION_1 = 1;
+    private static final int HEADER_BYTES = 13;
+    private static final int VERSION_1_HEADER_BYTES = 9;
+
+    private static final ChessPiece[] PIECES = new ChessPiece[12];
+
+    static {
+        for (ChessGame.TeamColor color : ChessGame.TeamColor.values()) {
+            for (ChessPiece.PieceType type : ChessPiece.PieceType.values()) {
+                PIECES[ChessBoard.bitboardIndex(color, type)] = ChessPiece.of(color, type);
+            }
+        }
+    }
+
+    private GameCodec() {
+    }
+
+    public static byte[] encode(ChessGame game) {
+        ChessBoard board = game.getBoard();
+        long occupied = board == null ? 0 : board.occupancy();
+        int count = Long.bitCount(occupied);
+        byte[] data = new byte[HEADER_BYTES + (count + 1) / 2];
+
+        data[0] = (byte) (VERSION << 1 | (game.getTeamTurn() == ChessGame.TeamColor.BLACK ? 1 : 0));
+        for (int i = 0; i < 8; i++) {
+            data[1 + i] = (byte) (occupied >>> (56 - 8 * i));
+        }
+        int moves = game.getMovesPlayed();
+        for (int i = 0; i < 4; i++) {
+            data[9 + i] = (byte) (moves >>> (24 - 8 * i));
+        }
+
+        int nibble = 0;
+        long squares = occupied;
+        while (squares != 0) {
+            int square = Long.numberOfTrailingZeros(squares);
+            squares &= squares - 1;
+            ChessPiece piece = board.getPiece(square);
+            int code = ChessBoard.bitboardIndex(piece.getTeamColor(), piece.getPieceType());
+            data[HEADER_BYTES + nibble / 2] |= (byte) ((nibble & 1) == 0 ? code << 4 : code);
+            nibble++;
+        }
+        return data;
+    }
+
+    /**
+     * @throws IllegalArgumentException if the bytes weren't made by {@link #encode(ChessGame)}
+     */
+    public static ChessGame decode(byte[] data) {
+        int version = data.length == 0 ? 0 : (data[0] & 0xFF) >>> 1;
+        int header = version == VERSION ? HEADER_BYTES : VERSION_1_HEADER_BYTES;
+        if ((version != VERSION && version != VERSION_1) || data.length < header) {
+            throw new IllegalArgumentException("Not an encoded chess game");
+        }
+        long occupied = 0;
+        for (int i = 0; i < 8; i++) {
+            occupied = occupied << 8 | (data[1 + i] & 0xFF);
+        }
+        int moves = 0;
+        if (version == VERSION) {
+            for (int i = 0; i < 4; i++) {
+                moves = moves << 8 | (data[9 + i] & 0xFF);
+            }
+        }
+        if (data.length != header + (Long.bitCount(occupied) + 1) / 2) {
+            throw new IllegalArgumentException("Encoded chess game has the wrong length");
+        }
+
+        ChessBoard board = new ChessBoard();
+        int nibble = 0;
+        while (occupied != 0) {
+            int square = Long.numberOfTrailingZeros(occupied);
+            occupied &= occupied - 1;
+            int packed = data[header + nibble / 2];
+            int code = ((nibble & 1) == 0 ? packed >>> 4 : packed) & 0xF;
+            if (code >= PIECES.length) {
+                throw new IllegalArgumentException("Bad piece code " + code);
+            }
+            board.setPiece(square, PIECES[code]);
+            nibble++;
+        }
+        ChessGame.TeamColor turn = (data[0] & 1) == 0 ? ChessGame.TeamColor.WHITE : ChessGame.TeamColor.BLACK;
+        return new ChessGame(board, turn, moves);
+    }
+}
@@ -0,0 +1,294 @@
+package chess;
+
+import java.util.Arrays;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * A bounded, thread-safe cache of legal move lists, keyed by a position's Zobrist key
+ * (which already includes whose turn it is) plus the square the moves start from.
+ * <p>
+ * Players and everyone watching a game tend to ask for the same piece's moves in the same
+ * position, so one ChessGame.validMoves call can answer all of them. Install a shared
+ * instance with {@link ChessGame#setLegalMoveCache(LegalMoveCache)}.
+ * <p>
+ * The cache is split into stripes that each have their own lock, so different games rarely
+ * wait on each other. Each stripe is an open-addressed table with a CLOCK hand for eviction:
+ * a hit marks an entry as referenced, and the hand clears that mark once before it evicts
+ * the entry, so recently used moves stay while cold ones get pushed out. The memory cap
+ * covers both the table slots and the stored moves.
+ */
+public final class LegalMoveCache {
+    private static final int STRIPES = 32;
+    // Rough per-entry cost used to size the tables: two slots' worth of key/flag arrays
+    // plus an int[] header and a typical handful of moves
+    private static final int SLOT_BYTES = 8 + 1 + 1 + 8;
+    private static final int ARRAY_HEADER_BYTES = 16;
+    private static final int TYPICAL_ENTRY_BYTES = 2 * SLOT_BYTES + ARRAY_HEADER_BYTES + 4 * 8;
+
+    private final Stripe[] stripes = new Stripe[STRIPES];
+    private final long maxBytes;
+
+    private final LongAdder hits = new LongAdder();
+    private final LongAdder misses = new LongAdder();
+    private final LongAdder evictions = new LongAdder();
+
+    /**
+     * @param maxBytes roughly how much memory the cache may use, tables included
+     */
+    public LegalMoveCache(long maxBytes) {
+        if (maxBytes < STRIPES * 1024L) {
+            throw new IllegalArgumentException("maxBytes must be at least " + STRIPES * 1024L);
+        }
+        this.maxBytes = maxBytes;
+        long stripeBytes = maxBytes / STRIPES;
+        int entries = (int) Math.min(1 << 24, stripeBytes / TYPICAL_ENTRY_BYTES);
+        int slots = Integer.highestOneBit(Math.max(entries, 8)) * 2;
+        long valueBytes = stripeBytes - (long) slots * SLOT_BYTES;
+
+        for (int i = 0; i < STRIPES; i++) {
+            stripes[i] = new Stripe(slots, valueBytes);
+        }
+    }
+
+    /**
+     * Appends the cached moves for the square to the list, if there are any.
+     *
+     * @return true on a hit
+     */
+    public boolean get(long positionKey, int square, MoveList moves) {
+        int[] cached = stripeFor(positionKey, square).get(positionKey, square);
+        if (cached == null) {
+            misses.increment();
+            return false;
+        }
+        hits.increment();
+        for (int move : cached) {
+            moves.add(move);
+        }
+        return true;
+    }
+
+    /**
+     * Stores moves [from, to) of the list as the legal moves for the square
+     */
+    public void put(long positionKey, int square, MoveList moves, int from, int to) {
+        int[] copy = new int[to - from];
+        for (int i = from; i < to; i++) {
+            copy[i - from] = moves.get(i);
+        }
+        evictions.add(stripeFor(positionKey, square).put(positionKey, square, copy));
+    }
+
+    public void clear() {
+        for (Stripe stripe : stripes) {
+            stripe.clear();
+        }
+    }
+
+    // ----- Metrics -----
+
+    public long getHits() {
+        return hits.sum();
+    }
+
+    public long getMisses() {
+        return misses.sum();
+    }
+
+    public long getEvictions() {
+        return evictions.sum();
+    }
+
+    /**
+     * @return hits / lookups, or 0 if nothing has been looked up yet
+     */
+    public double getHitRate() {
+        long h = hits.sum();
+        long total = h + misses.sum();
+        return total == 0 ? 0 : (double) h / total;
+    }
+
+    public int size() {
+        int size = 0;
+        for (Stripe stripe : stripes) {
+            size += stripe.size();
+        }
+        return size;
+    }
+
+    public long getMaxBytes() {
+        return maxBytes;
+    }
+
+    @Override
+    public String toString() {
+        return "LegalMoveCache{" +
+                "size=" + size() +
+                ", hits=" + getHits() +
+                ", misses=" + getMisses() +
+                ", evictions=" + getEvictions() +
+                ", maxBytes=" + maxBytes +
+                '}';
+    }
+
+    private Stripe stripeFor(long positionKey, int square) {
+        return stripes[(int) (mix(positionKey, square) >>> 59)];
+    }
+
+    // Spreads the key bits so nearby squares of the same position land in different places
+    private static long mix(long positionKey, int square) {
+        long h = positionKey ^ (square * 0x9E3779B97F4A7C15L);
+        h ^= h >>> 33;
+        h *= 0xFF51AFD7ED558CCDL;
+        h ^= h >>> 33;
+        return h;
+    }
+
+    /**
+     * One lock's worth of the cache: a linear-probing table whose slots the CLOCK hand sweeps
+     */
+    private static final class Stripe {
+        private final long[] positions;
+        private final byte[] squares;
+        private final int[][] values;
+        private final boolean[] referenced;
+        private final int mask;
+        private final int maxEntries;
+        private final long maxValueBytes;
+
+        private int size;
+        private long valueBytes;
+        private int hand;
+
+        Stripe(int slots, long maxValueBytes) {
+            positions = new long[slots];
+            squares = new byte[slots];
+            values = new int[slots][];
+            referenced = new boolean[slots];
+            mask = slots - 1;
+            maxEntries = slots / 2; // keep probe runs short
+            this.maxValueBytes = maxValueBytes;
+        }
+
+        synchronized int[] get(long position, int square) {
+            int slot = find(position, square);
+            if (slot < 0) {
+                return null;
+            }
+            referenced[slot] = true;
+            return values[slot];
+        }
+
+        /**
+         * @return how many entries were evicted to make room
+         */
+        synchronized int put(long position, int square, int[] moves) {
+            long cost = ARRAY_HEADER_BYTES + 4L * moves.length;
+            if (cost > maxValueBytes) {
+                return 0;
+            }
+            int existing = find(position, square);
+            if (existing >= 0) {
+                valueBytes += cost - bytesOf(values[existing]);
+                values[existing] = moves;
+                referenced[existing] = true;
+                return 0;
+            }
+
+            int evicted = 0;
+            while (size >= maxEntries || valueBytes + cost > maxValueBytes) {
+                evictOne();
+                evicted++;
+            }
+
+            int slot = home(position, square);
+            while (values[slot] != null) {
+                slot = (slot + 1) & mask;
+            }
+            positions[slot] = position;
+            squares[slot] = (byte) square;
+            values[slot] = moves;
+            referenced[slot] = false;
+            size++;
+            valueBytes += cost;
+            return evicted;
+        }
+
+        synchronized int size() {
+            return size;
+        }
+
+        synchronized void clear() {
+            Arrays.fill(values, null);
+            Arrays.fill(referenced, false);
+            size = 0;
+            valueBytes = 0;
+            hand = 0;
+        }
+
+        private int find(long position, int square) {
+            int slot = home(position, square);
+            while (values[slot] != null) {
+                if (positions[slot] == position && squares[slot] == square) {
+                    return slot;
+                }
+                slot = (slot + 1) & mask;
+            }
+            return -1;
+        }
+
+        private int home(long position, int square) {
+            return (int) mix(position, square) & mask;
+        }
+
+        // Sweeps the hand to the first entry not referenced since the last pass and removes it
+        private void evictOne() {
+            while (true) {
+                int slot = hand;
+                hand = (hand + 1) & mask;
+                if (values[slot] == null) {
+                    continue;
+                }
+                if (referenced[slot]) {
+                    referenced[slot] = false;
+                    continue;
+                }
+                removeAt(slot);
+                return;
+            }
+        }
+
+        // Backward-shift deletion so later entries in the probe run stay reachable
+        private void removeAt(int slot) {
+            valueBytes -= bytesOf(values[slot]);
+            size--;
+
+            int hole = slot;
+            int next = slot;
+            while (true) {
+                next = (next + 1) & mask;
+                if (values[next] == null) {
+                    break;
+                }
+                int wanted = home(positions[next], squares[next]);
+                // Move the entry back only if its home isn't between the hole and where it sits now
+                boolean between = hole <= next
+                        ? (wanted > hole && wanted <= next)
+                        : (wanted > hole || wanted <= next);
+                if (!between) {
+                    positions[hole] = positions[next];
+                    squares[hole] = squares[next];
+                    values[hole] = values[next];
+                    referenced[hole] = referenced[next];
+                    hole = next;
+                }
+            }
+            values[hole] = null;
+            referenced[hole] = false;
+        }
+
+        private static long bytesOf(int[] moves) {
+            return ARRAY_HEADER_BYTES + 4L * moves.length;
+        }
+    }
+}
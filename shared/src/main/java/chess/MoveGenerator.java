@@ -0,0 +1,308 @@
+package chess;
+
+/**
+ * Bitboard move generation for single pieces.
+ * <p>
+ * Knight, king and pawn attacks come from tables built once at class load. Rook and
+ * bishop attacks (and queens, which are both) use magic bitboards: the blockers on a
+ * piece's rays are multiplied by a per-square magic number so the top bits of the product
+ * index straight into a precomputed attack table, so there's no walking rays square by square.
+ * <p>
+ * Squares use the same 0-63 indexing as {@link ChessBoard#squareIndex(int, int)}.
+ */
+final class MoveGenerator {
+
+    private static final long RANK_1 = 0xFFL;
+    private static final long RANK_8 = RANK_1 << 56;
+
+    private static final ChessPiece.PieceType[] PROMOTIONS = {
+            ChessPiece.PieceType.QUEEN,
+            ChessPiece.PieceType.ROOK,
+            ChessPiece.PieceType.BISHOP,
+            ChessPiece.PieceType.KNIGHT
+    };
+
+    private static final int[][] ROOK_DIRECTIONS = {{1, 0}, {-1, 0}, {0, 1}, {0, -1}};
+    private static final int[][] BISHOP_DIRECTIONS = {{1, 1}, {1, -1}, {-1, 1}, {-1, -1}};
+
+    private static final long[] KNIGHT_ATTACKS = new long[64];
+    private static final long[] KING_ATTACKS = new long[64];
+    // [0] = squares a white pawn attacks, [1] = squares a black pawn attacks
+    private static final long[][] PAWN_ATTACKS = new long[2][64];
+
+    // Magic multipliers, found ahead of time by trying sparse random numbers until one mapped every
+    // blocker subset for the square into the table without two different attack sets colliding.
+    // Searching for them at class load took about half a second, so they're baked in here and
+    // only checked (cheaply) while the tables are filled.
+    private static final long[] ROOK_MAGICS = {
+            0x1080004008801020L, 0x0840092002C03000L, 0x1900200010400900L, 0x0880100008000480L,
+            0x4200100420080200L, 0x8100020100080400L, 0x0200040110886200L, 0x0200008040220411L,
+            0x0404800084400220L, 0x0000401000402000L, 0x0086001081220440L, 0x0408800800100280L,
+            0x000A001201040820L, 0x8848800200840080L, 0x4001000100040200L, 0x0442000102105084L,
+            0x9080010020804100L, 0x0040404000201009L, 0x0000808010002009L, 0x2200090021D00100L,
+            0x0008008008040080L, 0x0004004002010040L, 0x0011040008015042L, 0x00000A0001768104L,
+            0x0000800080204009L, 0x2010004140002001L, 0x9800200280100080L, 0x1000100080080080L,
+            0x0050500500080100L, 0x0000020080040080L, 0x0C10010400420810L, 0x1040008200005104L,
+            0x01808240088004A0L, 0x0882804004802000L, 0x0880402001001100L, 0x2000210409001000L,
+            0x2000480131001500L, 0x0000800400800200L, 0x000002380C001003L, 0x4600084882000431L,
+            0x0080002000504000L, 0x0300500020004002L, 0x0040408200220011L, 0x0010040008004040L,
+            0x0000080004008080L, 0x0010040002008080L, 0x2012004881020004L, 0x8300842444820011L,
+            0x0088403882010200L, 0x0820400080210100L, 0x0110910040A00300L, 0x0801100280080480L,
+            0x0242009008200600L, 0x1002000489500200L, 0x0040800200010080L, 0x0091800041000080L,
+            0x0000209300488001L, 0x04C1002414824001L, 0x020020000B001041L, 0x7000100004200901L,
+            0x8002002004100802L, 0x30010002084C0007L, 0x0888221800813004L, 0x4000002840840112L
+    };
+
+    private static final long[] BISHOP_MAGICS = {
+            0x20C0090901061081L, 0x0024040094030104L, 0x8210810200290200L, 0x0011040484620000L,
+            0x0081104002221000L, 0x0009012011001350L, 0x0081010802400380L, 0x0000420210010408L,
+            0x0008105002280050L, 0x0001028484040044L, 0x2A00880810408804L, 0x7020022282000100L,
+            0x0084040420100A50L, 0x000401010840E000L, 0x2020020210420888L, 0x0008084202012010L,
+            0x2010400810018800L, 0x0445122008020840L, 0x0804100808002008L, 0x0008002104110100L,
+            0x0061005820080800L, 0x2001000200820100L, 0x480C210084010800L, 0x3004442500480420L,
+            0x1010102240048100L, 0x00182009084220A3L, 0x8803090A10004205L, 0x0208080040202020L,
+            0x000C044084010040L, 0x00A1010002004106L, 0x6008210020640202L, 0x1600902112860801L,
+            0x00042008C1220200L, 0x010C042002440140L, 0x5022080200040820L, 0x0402004042940100L,
+            0x0860108400008020L, 0x000C080022021000L, 0x0264080652822100L, 0x4005031221010401L,
+            0x0004502410008400L, 0x000500B010A20400L, 0x0415094050080800L, 0x080000201800A104L,
+            0x4022A80304000110L, 0x4012140802028020L, 0x40200104010100A0L, 0x12810806008B0C41L,
+            0x0020441008080000L, 0x2002120084045420L, 0x0704020062080002L, 0x0000001084040001L,
+            0x0322200891240200L, 0xF040200210024800L, 0x0140824832008042L, 0x000210020A004602L,
+            0x0083042805141020L, 0x002C12009A011000L, 0x0041A00044140400L, 0x00004004020A0202L,
+            0x0000140010020210L, 0x2864160811012200L, 0x2060080841082A17L, 0xA010041108003100L
+    };
+
+    private static final long[] ROOK_MASKS = new long[64];
+    private static final int[] ROOK_SHIFTS = new int[64];
+    private static final long[][] ROOK_TABLE = new long[64][];
+
+    private static final long[] BISHOP_MASKS = new long[64];
+    private static final int[] BISHOP_SHIFTS = new int[64];
+    private static final long[][] BISHOP_TABLE = new long[64][];
+
+    static {
+        int[][] knightOffsets = {{2, 1}, {1, 2}, {-1, 2}, {-2, 1}, {-2, -1}, {-1, -2}, {1, -2}, {2, -1}};
+        int[][] kingOffsets = {{1, 0}, {-1, 0}, {0, 1}, {0, -1}, {1, 1}, {1, -1}, {-1, 1}, {-1, -1}};
+
+        for (int square = 0; square < 64; square++) {
+            KNIGHT_ATTACKS[square] = offsetAttacks(square, knightOffsets);
+            KING_ATTACKS[square] = offsetAttacks(square, kingOffsets);
+            PAWN_ATTACKS[0][square] = offsetAttacks(square, new int[][]{{1, -1}, {1, 1}});
+            PAWN_ATTACKS[1][square] = offsetAttacks(square, new int[][]{{-1, -1}, {-1, 1}});
+
+            initMagic(square, ROOK_DIRECTIONS, ROOK_MASKS, ROOK_MAGICS[square], ROOK_SHIFTS, ROOK_TABLE);
+            initMagic(square, BISHOP_DIRECTIONS, BISHOP_MASKS, BISHOP_MAGICS[square], BISHOP_SHIFTS, BISHOP_TABLE);
+        }
+    }
+
+    private MoveGenerator() {
+    }
+
+    // ----- Attack lookups -----
+
+    static long knightAttacks(int square) {
+        return KNIGHT_ATTACKS[square];
+    }
+
+    static long kingAttacks(int square) {
+        return KING_ATTACKS[square];
+    }
+
+    /**
+     * @return the squares a pawn of this color standing on the square attacks diagonally
+     */
+    static long pawnAttacks(ChessGame.TeamColor color, int square) {
+        return PAWN_ATTACKS[color == ChessGame.TeamColor.WHITE ? 0 : 1][square];
+    }
+
+    static long rookAttacks(int square, long occupancy) {
+        long blockers = occupancy & ROOK_MASKS[square];
+        return ROOK_TABLE[square][(int) ((blockers * ROOK_MAGICS[square]) >>> ROOK_SHIFTS[square])];
+    }
+
+    static long bishopAttacks(int square, long occupancy) {
+        long blockers = occupancy & BISHOP_MASKS[square];
+        return BISHOP_TABLE[square][(int) ((blockers * BISHOP_MAGICS[square]) >>> BISHOP_SHIFTS[square])];
+    }
+
+    static long queenAttacks(int square, long occupancy) {
+        return rookAttacks(square, occupancy) | bishopAttacks(square, occupancy);
+    }
+
+    /**
+     * Asks whether any piece of the attacking team hits the square, by looking outward from
+     * the square: knight hops, king steps, pawn diagonals and the two kinds of sliding ray.
+     * A piece that attacks the square from those squares must be one of these types.
+     */
+    static boolean isSquareAttacked(ChessBoard board, int square, ChessGame.TeamColor attacker) {
+        if ((KNIGHT_ATTACKS[square] & board.pieces(attacker, ChessPiece.PieceType.KNIGHT)) != 0) {
+            return true;
+        }
+        if ((KING_ATTACKS[square] & board.pieces(attacker, ChessPiece.PieceType.KING)) != 0) {
+            return true;
+        }
+        // Attacking pawns sit where a defending pawn on this square would capture
+        ChessGame.TeamColor defender = attacker == ChessGame.TeamColor.WHITE
+                ? ChessGame.TeamColor.BLACK : ChessGame.TeamColor.WHITE;
+        if ((pawnAttacks(defender, square) & board.pieces(attacker, ChessPiece.PieceType.PAWN)) != 0) {
+            return true;
+        }
+
+        long all = board.occupancy();
+        long queens = board.pieces(attacker, ChessPiece.PieceType.QUEEN);
+        long straight = board.pieces(attacker, ChessPiece.PieceType.ROOK) | queens;
+        if ((rookAttacks(square, all) & straight) != 0) {
+            return true;
+        }
+        long diagonal = board.pieces(attacker, ChessPiece.PieceType.BISHOP) | queens;
+        return (bishopAttacks(square, all) & diagonal) != 0;
+    }
+
+    // ----- Move generation -----
+
+    /**
+     * Works out every square a piece standing on the given square could move to, ignoring
+     * whether the move would leave its own king in check (same rules as pieceMoves).
+     *
+     * @return a bitboard of destination squares
+     */
+    static long targets(ChessBoard board, int square, ChessPiece piece) {
+        ChessGame.TeamColor color = piece.getTeamColor();
+        long own = board.occupancy(color);
+        long all = board.occupancy();
+
+        return switch (piece.getPieceType()) {
+            case KING -> KING_ATTACKS[square] & ~own;
+            case KNIGHT -> KNIGHT_ATTACKS[square] & ~own;
+            case BISHOP -> bishopAttacks(square, all) & ~own;
+            case ROOK -> rookAttacks(square, all) & ~own;
+            case QUEEN -> queenAttacks(square, all) & ~own;
+            case PAWN -> pawnTargets(square, color, all, all & ~own);
+        };
+    }
+
+    /**
+     * Adds a packed move (see MoveList) for every target of the piece on the square,
+     * expanding pawn moves onto the last row into one move per promotion piece.
+     */
+    static void addMoves(ChessBoard board, int from, ChessPiece piece, MoveList moves) {
+        long targets = targets(board, from, piece);
+        long enemies = board.occupancy() & ~board.occupancy(piece.getTeamColor());
+        boolean pawn = piece.getPieceType() == ChessPiece.PieceType.PAWN;
+
+        while (targets != 0) {
+            int to = Long.numberOfTrailingZeros(targets);
+            targets &= targets - 1;
+            int flags = ((1L << to) & enemies) != 0 ? MoveList.FLAG_CAPTURE : 0;
+
+            if (pawn && ((1L << to) & (RANK_1 | RANK_8)) != 0) {
+                for (ChessPiece.PieceType promo : PROMOTIONS) {
+                    moves.add(MoveList.pack(from, to, promo, flags));
+                }
+            } else {
+                if (pawn && Math.abs(to - from) == 16) {
+                    flags |= MoveList.FLAG_DOUBLE_PUSH;
+                }
+                moves.add(MoveList.pack(from, to, null, flags));
+            }
+        }
+    }
+
+    private static long pawnTargets(int square, ChessGame.TeamColor color, long all, long enemies) {
+        long bit = 1L << square;
+        long targets = pawnAttacks(color, square) & enemies;
+
+        if (color == ChessGame.TeamColor.WHITE) {
+            long one = (bit << 8) & ~all;
+            targets |= one;
+            if (ChessBoard.rowOf(square) == 2) {
+                targets |= (one << 8) & ~all;
+            }
+        } else {
+            long one = (bit >>> 8) & ~all;
+            targets |= one;
+            if (ChessBoard.rowOf(square) == 7) {
+                targets |= (one >>> 8) & ~all;
+            }
+        }
+        return targets;
+    }
+
+    // ----- Table setup -----
+
+    private static long offsetAttacks(int square, int[][] offsets) {
+        int row = ChessBoard.rowOf(square), col = ChessBoard.columnOf(square);
+        long attacks = 0;
+        for (int[] off : offsets) {
+            int r = row + off[0], c = col + off[1];
+            if (r >= 1 && r <= 8 && c >= 1 && c <= 8) {
+                attacks |= 1L << ChessBoard.squareIndex(r, c);
+            }
+        }
+        return attacks;
+    }
+
+    /**
+     * Walks each ray out from the square, stopping after the first blocker.
+     * Only used to fill the tables, the lookups above replace this at runtime.
+     */
+    private static long slowSlidingAttacks(int square, long occupancy, int[][] directions) {
+        int row = ChessBoard.rowOf(square), col = ChessBoard.columnOf(square);
+        long attacks = 0;
+        for (int[] d : directions) {
+            int r = row + d[0], c = col + d[1];
+            while (r >= 1 && r <= 8 && c >= 1 && c <= 8) {
+                long bit = 1L << ChessBoard.squareIndex(r, c);
+                attacks |= bit;
+                if ((occupancy & bit) != 0) {
+                    break;
+                }
+                r += d[0];
+                c += d[1];
+            }
+        }
+        return attacks;
+    }
+
+    /**
+     * The squares whose occupancy matters for a slider: its rays minus the last square
+     * of each ray, since a piece on the edge can't block anything behind it.
+     */
+    private static long relevantMask(int square, int[][] directions) {
+        int row = ChessBoard.rowOf(square), col = ChessBoard.columnOf(square);
+        long mask = 0;
+        for (int[] d : directions) {
+            int r = row + d[0], c = col + d[1];
+            while (r + d[0] >= 1 && r + d[0] <= 8 && c + d[1] >= 1 && c + d[1] <= 8) {
+                mask |= 1L << ChessBoard.squareIndex(r, c);
+                r += d[0];
+                c += d[1];
+            }
+        }
+        return mask;
+    }
+
+    private static void initMagic(int square, int[][] directions, long[] masks, long magic,
+                                  int[] shifts, long[][] tables) {
+        long mask = relevantMask(square, directions);
+        int bits = Long.bitCount(mask);
+        long[] table = new long[1 << bits];
+
+        // Visit every subset of the mask (carry-rippler trick) and store its real attacks.
+        // Attack sets are never empty, so 0 marks an unused slot.
+        long subset = 0;
+        do {
+            long attacks = slowSlidingAttacks(square, subset, directions);
+            int index = (int) ((subset * magic) >>> (64 - bits));
+            if (table[index] != 0 && table[index] != attacks) {
+                throw new IllegalStateException("bad magic for square " + square);
+            }
+            table[index] = attacks;
+            subset = (subset - mask) & mask;
+        } while (subset != 0);
+
+        masks[square] = mask;
+        shifts[square] = 64 - bits;
+        tables[square] = table;
+    }
+}
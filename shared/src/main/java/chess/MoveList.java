@@ -0,0 +1,133 @@
+package chess;
+
+import java.util.Arrays;
+
+/**
+ * A reusable list of moves packed into ints, for code that generates a lot of moves
+ * and doesn't want to allocate a ChessMove (and a collection to hold it) for each one.
+ * <p>
+ * A packed move stores its start and end squares as 0-63 indexes, where
+ * square = (row - 1) * 8 + (column - 1), so a1 is 0 and h8 is 63:
+ * <pre>
+ *   bits 0-5   start square
+ *   bits 6-11  end square
+ *   bits 12-14 promotion piece (0 for none, otherwise PieceType ordinal + 1)
+ *   bits 15+   flags (FLAG_CAPTURE, FLAG_DOUBLE_PUSH)
+ * </pre>
+ * Call {@link #clear()} and hand the same list back in to reuse it.
+ */
+public final class MoveList {
+    public static final int FLAG_CAPTURE = 1 << 15;
+    public static final int FLAG_DOUBLE_PUSH = 1 << 16;
+
+    // Everything that says which move it is; flags are only extra information
+    private static final int MOVE_MASK = (1 << 15) - 1;
+    private static final ChessPiece.PieceType[] TYPES = ChessPiece.PieceType.values();
+
+    private int[] moves;
+    private int size;
+
+    /**
+     * Makes a list big enough for any single position (the most legal moves
+     * a chess position can have is 218), so it shouldn't ever need to grow
+     */
+    public MoveList() {
+        this(256);
+    }
+
+    public MoveList(int capacity) {
+        moves = new int[Math.max(capacity, 1)];
+    }
+
+    public void add(int move) {
+        if (size == moves.length) {
+            moves = Arrays.copyOf(moves, size * 2);
+        }
+        moves[size++] = move;
+    }
+
+    public int get(int index) {
+        if (index >= size) {
+            throw new IndexOutOfBoundsException("Index " + index + " out of bounds for size " + size);
+        }
+        return moves[index];
+    }
+
+    public int size() {
+        return size;
+    }
+
+    public boolean isEmpty() {
+        return size == 0;
+    }
+
+    public void clear() {
+        size = 0;
+    }
+
+    /**
+     * @return true if the list has a move with the same squares and promotion, whatever its flags
+     */
+    public boolean contains(int move) {
+        for (int i = 0; i < size; i++) {
+            if (sameMove(moves[i], move)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    // Keeps only the first newSize moves, used when filtering in place
+    void truncate(int newSize) {
+        size = newSize;
+    }
+
+    void set(int index, int move) {
+        moves[index] = move;
+    }
+
+    // ----- Packing -----
+
+    public static int pack(int from, int to, ChessPiece.PieceType promotion, int flags) {
+        int promo = promotion == null ? 0 : promotion.ordinal() + 1;
+        return from | (to << 6) | (promo << 12) | flags;
+    }
+
+    /**
+     * Packs a ChessMove with no flags set
+     */
+    public static int pack(ChessMove move) {
+        ChessPosition start = move.getStartPosition();
+        ChessPosition end = move.getEndPosition();
+        return pack(ChessBoard.squareIndex(start.getRow(), start.getColumn()),
+                ChessBoard.squareIndex(end.getRow(), end.getColumn()), move.getPromotionPiece(), 0);
+    }
+
+    public static int from(int move) {
+        return move & 63;
+    }
+
+    public static int to(int move) {
+        return (move >>> 6) & 63;
+    }
+
+    /**
+     * @return the promotion piece, or null if the move isn't a promotion
+     */
+    public static ChessPiece.PieceType promotion(int move) {
+        int promo = (move >>> 12) & 7;
+        return promo == 0 ? null : TYPES[promo - 1];
+    }
+
+    public static int flags(int move) {
+        return move & ~MOVE_MASK;
+    }
+
+    public static boolean sameMove(int a, int b) {
+        return (a & MOVE_MASK) == (b & MOVE_MASK);
+    }
+
+    public static ChessMove toChessMove(int move) {
+        return new ChessMove(ChessPosition.ofSquare(from(move)), ChessPosition.ofSquare(to(move)), promotion(move));
+    }
+}
@@ -0,0 +1,242 @@
+package chess;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveTask;
+
+/**
+ * Perft ("performance test") for the move generator: counts every leaf of the legal move
+ * tree down to a fixed depth. The counts for well-known positions are published, so a wrong
+ * count means a move generation bug, and nodes per second is a handy throughput number
+ * for checking that an engine change actually made things faster.
+ * <p>
+ * Moves come from ChessGame.validMoves and are played with the same make/unmake that
+ * makeMove uses, so this exercises the real engine paths rather than a copy of them.
+ * <p>
+ * Run it with {@code java chess.Perft} for the built-in reference positions, or
+ * {@code java chess.Perft "<fen>" <depth> [threads]} for a single position.
+ */
+public final class Perft {
+
+    /**
+     * A position with its published leaf counts, starting at depth 1.
+     * Only depths where castling and en passant can't happen are listed,
+     * since this engine doesn't play either of those yet.
+     */
+    public record Reference(String name, String fen, long... counts) {
+    }
+
+    public record Result(long nodes, long nanos) {
+        public double nodesPerSecond() {
+            return nanos == 0 ? 0 : nodes * 1_000_000_000.0 / nanos;
+        }
+    }
+
+    public static final List<Reference> REFERENCES = List.of(
+            new Reference("start position",
+                    "rnbqkbnr/pppppppp/8/8/8/8/PPPPPPPP/RNBQKBNR w - - 0 1",
+                    20, 400, 8_902, 197_281),
+            new Reference("promotions",
+                    "n1n5/PPPk4/8/8/8/8/4Kppp/5N1N b - - 0 1",
+                    24, 496, 9_483, 182_838),
+            new Reference("rook endgame",
+                    "8/2p5/3p4/KP5r/1R3p1k/8/4P1P1/8 w - - 0 1",
+                    14, 191)
+    );
+
+    private Perft() {
+    }
+
+    // ----- Counting -----
+
+    /**
+     * Counts the leaves of the legal move tree on one thread. The game is left as it was.
+     */
+    public static long perft(ChessGame game, int depth) {
+        if (depth <= 0) {
+            return 1;
+        }
+        MoveList[] lists = new MoveList[depth + 1];
+        for (int i = 1; i <= depth; i++) {
+            lists[i] = new MoveList();
+        }
+        return count(game, depth, lists);
+    }
+
+    /**
+     * Counts the leaves with the moves from the root split across a fork/join pool,
+     * each on its own copy of the game. The game passed in isn't changed.
+     */
+    public static long perftParallel(ChessGame game, int depth, ForkJoinPool pool) {
+        if (depth <= 1) {
+            return perft(game, depth);
+        }
+        MoveList rootMoves = new MoveList();
+        legalMoves(game, rootMoves);
+
+        List<RootMoveTask> tasks = new ArrayList<>(rootMoves.size());
+        for (int i = 0; i < rootMoves.size(); i++) {
+            tasks.add(new RootMoveTask(copyOf(game), rootMoves.get(i), depth - 1));
+        }
+        for (RootMoveTask task : tasks) {
+            pool.execute(task);
+        }
+        long nodes = 0;
+        for (RootMoveTask task : tasks) {
+            nodes += task.join();
+        }
+        return nodes;
+    }
+
+    /**
+     * Runs perft and times it. Uses a fork/join pool when threads is more than 1.
+     */
+    public static Result run(ChessGame game, int depth, int threads) {
+        long start = System.nanoTime();
+        long nodes;
+        if (threads > 1) {
+            ForkJoinPool pool = new ForkJoinPool(threads);
+            try {
+                nodes = perftParallel(game, depth, pool);
+            } finally {
+                pool.shutdown();
+            }
+        } else {
+            nodes = perft(game, depth);
+        }
+        return new Result(nodes, System.nanoTime() - start);
+    }
+
+    private static long count(ChessGame game, int depth, MoveList[] lists) {
+        MoveList moves = lists[depth];
+        moves.clear();
+        legalMoves(game, moves);
+        if (depth == 1) {
+            return moves.size(); // no need to play the last ply, just count it
+        }
+
+        long nodes = 0;
+        for (int i = 0; i < moves.size(); i++) {
+            game.applyMove(moves.get(i));
+            nodes += count(game, depth - 1, lists);
+            game.undoMove();
+        }
+        return nodes;
+    }
+
+    // Every legal move for the team whose turn it is
+    private static void legalMoves(ChessGame game, MoveList moves) {
+        game.allValidMoves(moves);
+    }
+
+    private static ChessGame copyOf(ChessGame game) {
+        ChessGame copy = new ChessGame();
+        copy.setBoard(game.getBoard().copy());
+        copy.setTeamTurn(game.getTeamTurn());
+        return copy;
+    }
+
+    // Tasks only ever run in this JVM's pool; the game is never serialized
+    private static final class RootMoveTask extends RecursiveTask<Long> {
+        private static final long serialVersionUID = 1L;
+
+        private final transient ChessGame game;
+        private final int move;
+        private final int depth;
+
+        RootMoveTask(ChessGame game, int move, int depth) {
+            this.game = game;
+            this.move = move;
+            this.depth = depth;
+        }
+
+        @Override
+        protected Long compute() {
+            game.applyMove(move);
+            return perft(game, depth);
+        }
+    }
+
+    // ----- FEN -----
+
+    /**
+     * Builds a game from the board and side-to-move fields of a FEN string.
+     * The castling, en passant and move counter fields are ignored.
+     */
+    public static ChessGame loadFen(String fen) {
+        String[] fields = fen.trim().split("\\s+");
+        String[] ranks = fields[0].split("/");
+        if (ranks.length != 8) {
+            throw new IllegalArgumentException("FEN needs 8 ranks: " + fen);
+        }
+
+        ChessBoard board = new ChessBoard();
+        for (int i = 0; i < 8; i++) {
+            int row = 8 - i;
+            int col = 1;
+            for (char c : ranks[i].toCharArray()) {
+                if (Character.isDigit(c)) {
+                    col += c - '0';
+                    continue;
+                }
+                if (col > 8) {
+                    throw new IllegalArgumentException("Too many squares in rank " + row + ": " + fen);
+                }
+                ChessGame.TeamColor color = Character.isUpperCase(c) ? ChessGame.TeamColor.WHITE
+                        : ChessGame.TeamColor.BLACK;
+                board.addPiece(ChessPosition.of(row, col), ChessPiece.of(color, pieceType(c, fen)));
+                col++;
+            }
+        }
+
+        ChessGame game = new ChessGame();
+        game.setBoard(board);
+        boolean blackToMove = fields.length > 1 && fields[1].equalsIgnoreCase("b");
+        game.setTeamTurn(blackToMove ? ChessGame.TeamColor.BLACK : ChessGame.TeamColor.WHITE);
+        return game;
+    }
+
+    private static ChessPiece.PieceType pieceType(char c, String fen) {
+        return switch (Character.toLowerCase(c)) {
+            case 'k' -> ChessPiece.PieceType.KING;
+            case 'q' -> ChessPiece.PieceType.QUEEN;
+            case 'r' -> ChessPiece.PieceType.ROOK;
+            case 'b' -> ChessPiece.PieceType.BISHOP;
+            case 'n' -> ChessPiece.PieceType.KNIGHT;
+            case 'p' -> ChessPiece.PieceType.PAWN;
+            default -> throw new IllegalArgumentException("Unknown piece '" + c + "' in FEN: " + fen);
+        };
+    }
+
+    // ----- Command line -----
+
+    public static void main(String[] args) {
+        int threads = args.length > 2 ? Integer.parseInt(args[2]) : 1;
+        if (args.length >= 2) {
+            Result result = run(loadFen(args[0]), Integer.parseInt(args[1]), threads);
+            System.out.println(format(args[0], Integer.parseInt(args[1]), result));
+            return;
+        }
+
+        boolean allPassed = true;
+        for (Reference ref : REFERENCES) {
+            for (int depth = 1; depth <= ref.counts().length; depth++) {
+                Result result = run(loadFen(ref.fen()), depth, threads);
+                long expected = ref.counts()[depth - 1];
+                boolean ok = result.nodes() == expected;
+                allPassed &= ok;
+                System.out.println((ok ? "ok   " : "FAIL ") + format(ref.name(), depth, result)
+                        + (ok ? "" : " (expected " + expected + ")"));
+            }
+        }
+        if (!allPassed) {
+            System.exit(1);
+        }
+    }
+
+    private static String format(String name, int depth, Result result) {
+        return String.format("%s depth %d: %,d nodes in %.3f s (%,.0f nodes/s)",
+                name, depth, result.nodes(), result.nanos() / 1e9, result.nodesPerSecond());
+    }
+}
@@ -0,0 +1,69 @@
+package chess;
+
+import java.util.Arrays;
+
+/**
+ * Records what each move on a ChessGame changed so it can be taken back in place.
+ * <p>
+ * Entries live in parallel arrays that only grow, so pushing and popping a move during
+ * legality checks doesn't allocate anything once the stack has warmed up.
+ */
+final class UndoStack {
+    private int[] from = new int[32];
+    private int[] to = new int[32];
+    private ChessPiece[] moved = new ChessPiece[32];
+    private ChessPiece[] captured = new ChessPiece[32];
+    private int size;
+
+    void push(int fromSquare, int toSquare, ChessPiece movedPiece, ChessPiece capturedPiece) {
+        if (size == from.length) {
+            int capacity = size * 2;
+            from = Arrays.copyOf(from, capacity);
+            to = Arrays.copyOf(to, capacity);
+            moved = Arrays.copyOf(moved, capacity);
+            captured = Arrays.copyOf(captured, capacity);
+        }
+        from[size] = fromSquare;
+        to[size] = toSquare;
+        moved[size] = movedPiece;
+        captured[size] = capturedPiece;
+        size++;
+    }
+
+    /**
+     * Drops the newest entry. Read it with the getters below first.
+     */
+    void pop() {
+        size--;
+        moved[size] = null;
+        captured[size] = null;
+    }
+
+    boolean isEmpty() {
+        return size == 0;
+    }
+
+    void clear() {
+        Arrays.fill(moved, 0, size, null);
+        Arrays.fill(captured, 0, size, null);
+        size = 0;
+    }
+
+    // ----- Newest entry -----
+
+    int lastFrom() {
+        return from[size - 1];
+    }
+
+    int lastTo() {
+        return to[size - 1];
+    }
+
+    ChessPiece lastMoved() {
+        return moved[size - 1];
+    }
+
+    ChessPiece lastCaptured() {
+        return captured[size - 1];
+    }
+}
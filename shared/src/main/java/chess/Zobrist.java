@@ -0,0 +1,36 @@
+package chess;
+
+import java.util.SplittableRandom;
+
+/**
+ * Random 64-bit keys for Zobrist hashing of positions.
+ * <p>
+ * A position's key is the XOR of one key per (piece, square) on the board, plus SIDE_TO_MOVE
+ * when it's black's turn. Moving a piece only means XORing its old and new square keys, so
+ * the key can be kept up to date in O(1) as moves are made and taken back. Castling and
+ * en passant aren't part of the rules this engine plays yet; when they are, their rights
+ * need keys of their own here.
+ */
+final class Zobrist {
+    // Fixed seed so the same position hashes the same way in every JVM
+    private static final SplittableRandom RANDOM = new SplittableRandom(0x5EED_C0FFEE_2024L);
+
+    // [ChessBoard.bitboardIndex(color, type)][square]
+    private static final long[][] PIECE_SQUARE = new long[12][64];
+    static final long SIDE_TO_MOVE = RANDOM.nextLong();
+
+    static {
+        for (long[] keys : PIECE_SQUARE) {
+            for (int square = 0; square < 64; square++) {
+                keys[square] = RANDOM.nextLong();
+            }
+        }
+    }
+
+    private Zobrist() {
+    }
+
+    static long pieceKey(ChessPiece piece, int square) {
+        return PIECE_SQUARE[ChessBoard.bitboardIndex(piece.getTeamColor(), piece.getPieceType())][square];
+    }
+}
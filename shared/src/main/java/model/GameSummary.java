@@ -0,0 +1,11 @@
+package model;
+
+/**
+ * A game's id, name and players without the board, for listings that don't need the state
+ */
+public record GameSummary(
+        int gameID,
+        String whiteUsername,
+        String blackUsername,
+        String gameName) {
+}
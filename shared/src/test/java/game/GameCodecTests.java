@@ -0,0 +1,75 @@
+package game;
+
+import chess.ChessBoard;
+import chess.ChessGame;
+import chess.ChessMove;
+import chess.ChessPosition;
+import chess.GameCodec;
+import chess.InvalidMoveException;
+import chess.Perft;
+import com.google.gson.Gson;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+public class GameCodecTests {
+
+    @Test
+    @DisplayName("Start Position Round Trips")
+    public void startPosition() {
+        var game = new ChessGame();
+        byte[] data = GameCodec.encode(game);
+
+        Assertions.assertEquals(29, data.length);
+        Assertions.assertEquals(game, GameCodec.decode(data));
+        Assertions.assertTrue(data.length * 10 < new Gson().toJson(game).length(),
+                "Binary form should be an order of magnitude smaller than JSON");
+    }
+
+    @Test
+    @DisplayName("Turn And Moved Pieces Round Trip")
+    public void afterMoves() throws InvalidMoveException {
+        var game = new ChessGame();
+        game.makeMove(new ChessMove(new ChessPosition(2, 5), new ChessPosition(4, 5), null));
+
+        var decoded = GameCodec.decode(GameCodec.encode(game));
+        Assertions.assertEquals(game, decoded);
+        Assertions.assertEquals(ChessGame.TeamColor.BLACK, decoded.getTeamTurn());
+        Assertions.assertEquals(game.getZobristKey(), decoded.getZobristKey());
+        Assertions.assertEquals(1, decoded.getMovesPlayed());
+
+        // The decoded game is playable, not just equal
+        decoded.makeMove(new ChessMove(new ChessPosition(7, 5), new ChessPosition(5, 5), null));
+    }
+
+    @Test
+    @DisplayName("Odd Piece Counts And Empty Boards Round Trip")
+    public void oddAndEmpty() {
+        var endgame = Perft.loadFen("8/2p5/3p4/KP5r/1R3p1k/8/4P1P1/8 w - - 0 1");
+        Assertions.assertEquals(endgame, GameCodec.decode(GameCodec.encode(endgame)));
+
+        var empty = new ChessGame();
+        empty.setBoard(new ChessBoard());
+        byte[] data = GameCodec.encode(empty);
+        Assertions.assertEquals(13, data.length);
+        Assertions.assertEquals(empty, GameCodec.decode(data));
+    }
+
+    @Test
+    @DisplayName("Reads Version 1, Which Had No Move Count")
+    public void versionOne() {
+        byte[] blackToMoveOnEmptyBoard = {1 << 1 | 1, 0, 0, 0, 0, 0, 0, 0, 0};
+        var decoded = GameCodec.decode(blackToMoveOnEmptyBoard);
+        Assertions.assertEquals(ChessGame.TeamColor.BLACK, decoded.getTeamTurn());
+        Assertions.assertEquals(0, decoded.getMovesPlayed());
+        Assertions.assertEquals(new ChessBoard(), decoded.getBoard());
+    }
+
+    @Test
+    @DisplayName("Rejects Bytes That Aren't An Encoded Game")
+    public void rejectsGarbage() {
+        Assertions.assertThrows(IllegalArgumentException.class,
+                () -> GameCodec.decode("{\"board\":{}}".getBytes()));
+        Assertions.assertThrows(IllegalArgumentException.class, () -> GameCodec.decode(new byte[3]));
+    }
+}
@@ -0,0 +1,91 @@
+package game;
+
+import chess.ChessGame;
+import chess.ChessMove;
+import chess.ChessPosition;
+import chess.LegalMoveCache;
+import chess.MoveList;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+public class LegalMoveCacheTests {
+
+    @AfterEach
+    public void removeCache() {
+        ChessGame.setLegalMoveCache(null);
+    }
+
+    @Test
+    @DisplayName("Repeated Valid Moves Hit The Cache")
+    public void repeatedLookupsHit() {
+        var cache = new LegalMoveCache(1 << 20);
+        ChessGame.setLegalMoveCache(cache);
+        var game = new ChessGame();
+        var knight = new ChessPosition(1, 2);
+
+        var first = game.validMoves(knight);
+        var second = game.validMoves(knight);
+
+        Assertions.assertEquals(new HashSet<>(first), new HashSet<>(second));
+        Assertions.assertEquals(1, cache.getMisses());
+        Assertions.assertEquals(1, cache.getHits());
+    }
+
+    @Test
+    @DisplayName("Cache Stays Within Its Entry Budget")
+    public void evictsWhenFull() {
+        var cache = new LegalMoveCache(32 * 1024);
+        var moves = new MoveList();
+        moves.add(MoveList.pack(new ChessMove(new ChessPosition(1, 1), new ChessPosition(2, 1), null)));
+
+        for (long key = 0; key < 10_000; key++) {
+            cache.put(key * 0x9E3779B97F4A7C15L, 0, moves, 0, 1);
+        }
+
+        Assertions.assertTrue(cache.getEvictions() > 0);
+        Assertions.assertTrue(cache.size() < 10_000);
+        moves.clear();
+        Assertions.assertTrue(cache.get(9_999 * 0x9E3779B97F4A7C15L, 0, moves), "Newest entry was evicted");
+        Assertions.assertEquals(1, moves.size());
+    }
+
+    @Test
+    @DisplayName("Concurrent Games Share The Cache")
+    public void concurrentLookups() throws Exception {
+        var cache = new LegalMoveCache(1 << 20);
+        ChessGame.setLegalMoveCache(cache);
+        ExecutorService pool = Executors.newFixedThreadPool(8);
+        try {
+            var results = new ArrayList<Future<Integer>>();
+            for (int t = 0; t < 8; t++) {
+                results.add(pool.submit(() -> {
+                    var game = new ChessGame();
+                    var list = new MoveList();
+                    int total = 0;
+                    for (int i = 0; i < 200; i++) {
+                        for (int col = 1; col <= 8; col++) {
+                            list.clear();
+                            game.validMoves(new ChessPosition(2, col), list);
+                            total += list.size();
+                        }
+                    }
+                    return total;
+                }));
+            }
+            for (var result : results) {
+                Assertions.assertEquals(200 * 16, result.get());
+            }
+        } finally {
+            pool.shutdown();
+        }
+        Assertions.assertTrue(cache.getHitRate() > 0.9);
+    }
+}
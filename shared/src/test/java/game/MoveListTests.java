@@ -0,0 +1,78 @@
+package game;
+
+import chess.ChessGame;
+import chess.ChessMove;
+import chess.ChessPiece;
+import chess.ChessPosition;
+import chess.MoveList;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import passoff.chess.TestUtilities;
+
+import java.util.ArrayList;
+import java.util.List;
+
+public class MoveListTests {
+
+    @Test
+    @DisplayName("Packed Moves Round Trip")
+    public void packRoundTrip() {
+        var move = new ChessMove(new ChessPosition(7, 2), new ChessPosition(8, 1), ChessPiece.PieceType.KNIGHT);
+        int packed = MoveList.pack(move);
+
+        Assertions.assertEquals(move, MoveList.toChessMove(packed));
+        Assertions.assertEquals(ChessPiece.PieceType.KNIGHT, MoveList.promotion(packed));
+        Assertions.assertTrue(MoveList.sameMove(packed, packed | MoveList.FLAG_CAPTURE));
+    }
+
+    @Test
+    @DisplayName("Collection Valid Moves Match Packed Valid Moves")
+    public void packedMatchesCollection() {
+        var game = new ChessGame();
+        game.setBoard(TestUtilities.loadBoard("""
+                |r| | | |k| | |r|
+                | |P| | | | | | |
+                | | | | | | | | |
+                | | | |p| | | | |
+                | | | | | | | | |
+                | | | | | |n| | |
+                |P| | | | | |B| |
+                |R| | | |K| | | |
+                """));
+
+        var list = new MoveList();
+        for (int row = 1; row <= 8; row++) {
+            for (int col = 1; col <= 8; col++) {
+                var position = new ChessPosition(row, col);
+                var expected = game.validMoves(position);
+
+                list.clear();
+                boolean hasPiece = game.validMoves(position, list);
+                Assertions.assertEquals(expected != null, hasPiece, "Wrong result for " + position);
+                if (expected == null) {
+                    continue;
+                }
+
+                List<ChessMove> actual = new ArrayList<>();
+                for (int i = 0; i < list.size(); i++) {
+                    actual.add(MoveList.toChessMove(list.get(i)));
+                }
+                TestUtilities.validateMoves(new ArrayList<>(expected), actual);
+            }
+        }
+    }
+
+    @Test
+    @DisplayName("Reused List Keeps Earlier Moves")
+    public void appendsToList() {
+        var game = new ChessGame();
+        var list = new MoveList();
+
+        game.validMoves(new ChessPosition(2, 5), list);
+        Assertions.assertEquals(2, list.size());
+        game.validMoves(new ChessPosition(1, 2), list);
+        Assertions.assertEquals(4, list.size());
+        Assertions.assertNotEquals(0, MoveList.flags(list.get(1)) & MoveList.FLAG_DOUBLE_PUSH);
+    }
+}
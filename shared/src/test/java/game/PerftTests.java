@@ -0,0 +1,52 @@
+package game;
+
+import chess.ChessGame;
+import chess.Perft;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.util.concurrent.ForkJoinPool;
+
+public class PerftTests {
+
+    @Test
+    @DisplayName("Reference Positions Match Published Counts")
+    public void referenceCounts() {
+        for (Perft.Reference ref : Perft.REFERENCES) {
+            int depth = Math.min(3, ref.counts().length);
+            for (int d = 1; d <= depth; d++) {
+                Assertions.assertEquals(ref.counts()[d - 1], Perft.perft(Perft.loadFen(ref.fen()), d),
+                        ref.name() + " depth " + d);
+            }
+        }
+    }
+
+    @Test
+    @DisplayName("Parallel Perft Matches Published Counts")
+    public void parallelCounts() {
+        var pool = new ForkJoinPool(4);
+        try {
+            for (Perft.Reference ref : Perft.REFERENCES) {
+                int depth = ref.counts().length;
+                Assertions.assertEquals(ref.counts()[depth - 1],
+                        Perft.perftParallel(Perft.loadFen(ref.fen()), depth, pool), ref.name() + " depth " + depth);
+            }
+        } finally {
+            pool.shutdown();
+        }
+    }
+
+    @Test
+    @DisplayName("Perft Leaves The Game Unchanged")
+    public void gameRestored() {
+        var game = new ChessGame();
+        var before = new ChessGame();
+        long key = game.getZobristKey();
+
+        Perft.perft(game, 3);
+
+        Assertions.assertEquals(before, game);
+        Assertions.assertEquals(key, game.getZobristKey());
+    }
+}
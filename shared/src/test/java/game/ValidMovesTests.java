@@ -10,6 +10,11 @@ import passoff.chess.TestUtilities;
 
 import java.util.ArrayList;
 import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
 
 public class ValidMovesTests {
     private static final String TRAPPED_PIECE_MOVES = "ChessGame validMoves returned valid moves for a trapped piece";
@@ -164,6 +169,41 @@ public class ValidMovesTests {
         assertMoves(game, validMoves, position);
     }
 
+    @Test
+    @DisplayName("Valid Moves Leaves The Game Alone Across Threads")
+    public void validMovesFromManyThreads() throws Exception {
+        var game = new ChessGame();
+        var before = new ChessGame();
+        int threads = 4;
+        var start = new CountDownLatch(1);
+        ExecutorService pool = Executors.newFixedThreadPool(threads);
+        try {
+            List<Future<?>> results = new ArrayList<>();
+            for (int t = 0; t < threads; t++) {
+                results.add(pool.submit(() -> {
+                    start.await();
+                    for (int i = 0; i < 2_000; i++) {
+                        for (int col = 1; col <= 8; col++) {
+                            Assertions.assertEquals(2,
+                                    game.validMoves(new ChessPosition(2, col)).size());
+                            game.validMoves(new ChessPosition(1, col));
+                        }
+                        Assertions.assertFalse(game.isInStalemate(ChessGame.TeamColor.WHITE));
+                        Assertions.assertFalse(game.isInCheckmate(ChessGame.TeamColor.BLACK));
+                    }
+                    return null;
+                }));
+            }
+            start.countDown();
+            for (Future<?> result : results) {
+                result.get(30, TimeUnit.SECONDS);
+            }
+        } finally {
+            pool.shutdownNow();
+        }
+        Assertions.assertEquals(before, game, "validMoves changed the board");
+    }
+
     private static void assertMoves(ChessGame game, List<ChessMove> validMoves, ChessPosition position) {
         var generatedMoves = game.validMoves(position);
         var actualMoves = new ArrayList<>(generatedMoves);
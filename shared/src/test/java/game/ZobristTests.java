@@ -0,0 +1,71 @@
+package game;
+
+import chess.ChessGame;
+import chess.ChessMove;
+import chess.ChessPosition;
+import chess.InvalidMoveException;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import passoff.chess.TestUtilities;
+
+public class ZobristTests {
+
+    @Test
+    @DisplayName("Transposed Move Orders Hash The Same")
+    public void transpositionsMatch() throws InvalidMoveException {
+        var first = new ChessGame();
+        play(first, 1, 2, 3, 3);  // knight b1-c3
+        play(first, 8, 7, 6, 6);  // knight g8-f6
+        play(first, 1, 7, 3, 6);  // knight g1-f3
+
+        var second = new ChessGame();
+        play(second, 1, 7, 3, 6);
+        play(second, 8, 7, 6, 6);
+        play(second, 1, 2, 3, 3);
+
+        Assertions.assertEquals(first, second);
+        Assertions.assertEquals(first.getZobristKey(), second.getZobristKey());
+        Assertions.assertEquals(first.hashCode(), second.hashCode());
+    }
+
+    @Test
+    @DisplayName("Incremental Hash Matches Fresh Hash")
+    public void incrementalMatchesFresh() throws InvalidMoveException {
+        var game = new ChessGame();
+        play(game, 2, 5, 4, 5);
+        play(game, 7, 4, 5, 4);
+        play(game, 4, 5, 5, 4);  // capture
+
+        var fresh = new ChessGame();
+        fresh.setBoard(TestUtilities.loadBoard("""
+                |r|n|b|q|k|b|n|r|
+                |p|p|p| |p|p|p|p|
+                | | | | | | | | |
+                | | | |P| | | | |
+                | | | | | | | | |
+                | | | | | | | | |
+                |P|P|P|P| |P|P|P|
+                |R|N|B|Q|K|B|N|R|
+                """));
+        fresh.setTeamTurn(ChessGame.TeamColor.BLACK);
+
+        Assertions.assertEquals(fresh.getZobristKey(), game.getZobristKey());
+    }
+
+    @Test
+    @DisplayName("Side To Move Changes Hash")
+    public void sideToMove() {
+        var white = new ChessGame();
+        var black = new ChessGame();
+        black.setTeamTurn(ChessGame.TeamColor.BLACK);
+
+        Assertions.assertNotEquals(white.getZobristKey(), black.getZobristKey());
+        Assertions.assertEquals(white.getBoard().hashCode(), black.getBoard().hashCode());
+    }
+
+    private static void play(ChessGame game, int startRow, int startCol, int endRow, int endCol)
+            throws InvalidMoveException {
+        game.makeMove(new ChessMove(new ChessPosition(startRow, startCol), new ChessPosition(endRow, endCol), null));
+    }
+}